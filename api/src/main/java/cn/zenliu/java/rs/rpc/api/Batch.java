@@ -0,0 +1,34 @@
+package cn.zenliu.java.rs.rpc.api;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A batch of request response calls, which are sent in one request and fan out by the remote.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-31
+ */
+public interface Batch {
+    /**
+     * a recording proxy of a service: calls on it are only recorded, they return null, zero or false.
+     *
+     * @param clientKlass service ( must be a interface)
+     * @param <T>         service type
+     * @return the recording proxy
+     */
+    <T> T record(Class<T> clientKlass);
+
+    /**
+     * @return count of recorded calls
+     */
+    int size();
+
+    /**
+     * send all recorded calls in one request, the batch is routed by the service of the first call.
+     *
+     * @return results in the order of the recorded calls
+     */
+    CompletableFuture<List<Result<Object>>> execute();
+}
@@ -0,0 +1,32 @@
+package cn.zenliu.java.rs.rpc.api;
+
+import java.lang.annotation.*;
+
+/**
+ * Batch concurrent calls of a single key method on a client service into calls of its bulk method.<br>
+ * The annotated method must have only one parameter, the key. The bulk method must accept a {@link java.util.List} of keys
+ * and return a {@link java.util.List} of results in the same order.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-31
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Batched {
+    /**
+     * name of the bulk method in same interface
+     */
+    String value();
+
+    /**
+     * milliseconds to collect keys since the first one
+     */
+    long window() default 5;
+
+    /**
+     * maximum keys of a bulk call, a full batch is sent at once
+     */
+    int size() default 128;
+}
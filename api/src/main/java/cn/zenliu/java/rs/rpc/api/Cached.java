@@ -0,0 +1,28 @@
+package cn.zenliu.java.rs.rpc.api;
+
+import java.lang.annotation.*;
+
+/**
+ * Cache successful results of a idempotent request response method of a client service, keyed by encoded arguments.<br>
+ * Cached results are shared by callers, so they should be treated as immutable.<br>
+ * Stream, channel or fire and forget methods are rejected when creating the client service.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-31
+ * @see Scope#invalidateCache(Class, String)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Cached {
+    /**
+     * milliseconds to live since cached, non positive for never expire
+     */
+    long ttl() default 60_000;
+
+    /**
+     * max cached results of the method
+     */
+    int maxEntries() default 1024;
+}
@@ -0,0 +1,76 @@
+package cn.zenliu.java.rs.rpc.api;
+
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Singular;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Options of a client service proxy, proxies are cached by interface and equal options
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-30
+ */
+@Getter
+@EqualsAndHashCode
+@Builder(toBuilder = true)
+public class ClientOptions {
+    public static final ClientOptions DEFAULT = ClientOptions.builder().build();
+    /**
+     * timeout of all methods, null to use the scope timeout
+     */
+    final Duration timeout;
+    /**
+     * timeout override by method name
+     */
+    @Singular final Map<String, Duration> timeouts;
+    /**
+     * maximum demand of a stream or channel requested from remote at once, replenished when 75% consumed. 0 for default
+     */
+    final int prefetch;
+    /**
+     * prefetch override by method name
+     */
+    @Singular final Map<String, Integer> prefetches;
+    /**
+     * names of request response methods in single flight mode: concurrent calls with equal arguments share one in-flight request
+     */
+    @Singular final Set<String> singleFlights;
+    /**
+     * call the handler directly when a scope of this JVM serves the method, skipping serialization and transport.<br>
+     * arguments and results are still copied by Mimic when auto delegate is on. falls back to remote when none found
+     */
+    final boolean local;
+
+    /**
+     * @param method method name
+     * @return timeout of method or null if use the scope one
+     */
+    public @Nullable Duration timeoutOf(String method) {
+        final Duration d = timeouts == null ? null : timeouts.get(method);
+        return d != null ? d : timeout;
+    }
+
+    /**
+     * @param method method name
+     * @return prefetch of method, 0 for default
+     */
+    public int prefetchOf(String method) {
+        final Integer p = prefetches == null ? null : prefetches.get(method);
+        return p != null ? p : prefetch;
+    }
+
+    /**
+     * @param method method name
+     * @return true if method is in single flight mode
+     */
+    public boolean isSingleFlight(String method) {
+        return singleFlights != null && singleFlights.contains(method);
+    }
+}
@@ -8,6 +8,7 @@ import org.jetbrains.annotations.Range;
 
 import java.net.URI;
 import java.time.Duration;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * @author Zen.Liu
@@ -16,7 +17,8 @@ import java.time.Duration;
  */
 public interface Config {
     /**
-     * 0 TCP;1 WS
+     * 0 TCP;1 WS;2 LOCAL (in JVM, named by bind address of server or host of client);
+     * 3 UNIX domain socket (native transport only, path by bind address of server or host of client)
      */
     int getMode();
 
@@ -27,6 +29,20 @@ public interface Config {
 
     @Nullable ResumeSetting getResume();
 
+    /**
+     * socket options of TCP and UNIX domain socket mode, null for defaults
+     */
+    default @Nullable SocketSetting getSocket() {
+        return null;
+    }
+
+    /**
+     * event loops of transport, null to use the global loops of reactor netty
+     */
+    default @Nullable LoopSetting getLoop() {
+        return null;
+    }
+
 
     interface ServerConfig extends Config {
         @Nullable String getBindAddress();
@@ -36,6 +52,14 @@ public interface Config {
         @Nullable @Range(from = 64, to = Integer.MAX_VALUE) Integer getFragment();
 
         @Nullable @Range(from = 64, to = Integer.MAX_VALUE) Integer getMaxInboundPayloadSize();
+
+        /**
+         * consolidate flushes of small frames: frames written in one event loop tick are flushed together,
+         * and a flush is forced after this count of frames. null to flush every frame
+         */
+        default @Nullable @Range(from = 1, to = Integer.MAX_VALUE) Integer getFlushConsolidation() {
+            return null;
+        }
     }
 
     interface ResumeSetting {
@@ -50,6 +74,59 @@ public interface Config {
         @Nullable String getToken();
     }
 
+    /**
+     * null values keep the transport defaults
+     */
+    interface SocketSetting {
+        /**
+         * use native transport (epoll) when available, default true
+         */
+        @Nullable Boolean getPreferNative();
+
+        @Nullable Boolean getTcpNoDelay();
+
+        /**
+         * SO_REUSEPORT of server, native transport only
+         */
+        @Nullable Boolean getReusePort();
+
+        /**
+         * TCP_QUICKACK, native transport only
+         */
+        @Nullable Boolean getQuickAck();
+
+        @Nullable Integer getSendBufferSize();
+
+        @Nullable Integer getReceiveBufferSize();
+    }
+
+    /**
+     * servers and clients with loops of the same name share them in the JVM, the first setting of a name takes effect
+     */
+    interface LoopSetting {
+        /**
+         * name of loops, also prefix of thread names
+         */
+        String getName();
+
+        /**
+         * IO threads, null for count of processors (at least 4)
+         */
+        @Nullable @Range(from = 1, to = Integer.MAX_VALUE) Integer getWorkers();
+
+        /**
+         * threads accepting connections of servers, null or 0 to accept on the IO threads
+         */
+        @Nullable @Range(from = 0, to = Integer.MAX_VALUE) Integer getSelectors();
+
+        boolean isDaemon();
+
+        /**
+         * factory of loop threads, such as one pinning threads to cores. null for named threads
+         */
+        @Nullable ThreadFactory getThreadFactory();
+    }
+
     interface ClientConfig extends Config {
         @Nullable String getHost();
 
@@ -69,6 +146,14 @@ public interface Config {
 
         @Nullable Retry getConnectRetry();
 
+        /**
+         * consolidate flushes of small frames: frames written in one event loop tick are flushed together,
+         * and a flush is forced after this count of frames. null to flush every frame
+         */
+        default @Nullable @Range(from = 1, to = Integer.MAX_VALUE) Integer getFlushConsolidation() {
+            return null;
+        }
+
     }
 
     interface Retry {
@@ -134,6 +219,27 @@ public interface Config {
         final String token;
     }
 
+    @Getter
+    @Builder
+    class Socket implements SocketSetting {
+        final Boolean preferNative;
+        final Boolean tcpNoDelay;
+        final Boolean reusePort;
+        final Boolean quickAck;
+        final Integer sendBufferSize;
+        final Integer receiveBufferSize;
+    }
+
+    @Getter
+    @Builder
+    class Loop implements LoopSetting {
+        final String name;
+        final Integer workers;
+        final Integer selectors;
+        @Builder.Default final boolean daemon = true;
+        final ThreadFactory threadFactory;
+    }
+
     @Getter
     @Builder
     class Server implements ServerConfig {
@@ -143,7 +249,10 @@ public interface Config {
         final Integer port;
         final Integer fragment;
         final Integer maxInboundPayloadSize;
+        final Integer flushConsolidation;
         final ResumeSetting resume;
+        final SocketSetting socket;
+        final LoopSetting loop;
     }
 
     @Getter
@@ -160,6 +269,9 @@ public interface Config {
         final Duration keepAliveMaxLifeTime;
         final Retry retry;
         final Retry connectRetry;
+        final Integer flushConsolidation;
         final ResumeSetting resume;
+        final SocketSetting socket;
+        final LoopSetting loop;
     }
 }
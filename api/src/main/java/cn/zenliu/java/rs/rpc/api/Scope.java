@@ -72,6 +72,50 @@ public interface Scope {
      */
     <T> T createClientService(Class<T> clientKlass, @Nullable Map<String, Function<Object[], Object[]>> argumentProcessor, boolean useFNF);
 
+    /**
+     * build a Proxy Rpc Service with options, proxies are shared by equal options only
+     *
+     * @param clientKlass       service ( must be a interface)
+     * @param argumentProcessor parameter and result processor for each method
+     * @param useFNF            use fireAndForgot for void return method
+     * @param options           client options, null for {@link ClientOptions#DEFAULT}
+     * @param <T>               service type
+     * @return the Instance
+     */
+    <T> T createClientService(Class<T> clientKlass, @Nullable Map<String, Function<Object[], Object[]>> argumentProcessor, boolean useFNF, @Nullable ClientOptions options);
+
+    /**
+     * create a batch of calls, which are sent in one request. the batch uses the scope timeout.
+     */
+    Batch batch();
+
+    /**
+     * invalidate cached results of client services in this scope
+     *
+     * @param serviceKlass the service
+     * @param method       method name, null for all methods
+     * @see Cached
+     */
+    void invalidateCache(Class<?> serviceKlass, @Nullable String method);
+
+    /**
+     * invalidate memoized responses of local services in this scope
+     *
+     * @param serviceKlass the service
+     * @param method       method name, null for all methods
+     * @see ServiceOptions#getMemoize()
+     */
+    void invalidateMemo(Class<?> serviceKlass, @Nullable String method);
+
+    /**
+     * push a cache invalidation to all connected remotes, which invalidate their cached results of client services.
+     * a routeing remote pass it to its other remotes.
+     *
+     * @param serviceKlass the service
+     * @param method       method name, null for all methods
+     */
+    void pushCacheInvalidation(Class<?> serviceKlass, @Nullable String method);
+
     /**
      * register a local service to serve
      *
@@ -86,6 +130,22 @@ public interface Scope {
         @Nullable Map<String, Function<Object, Object>> resultProcessor
     );
 
+    /**
+     * register a local service to serve with options
+     *
+     * @param service         the service instance
+     * @param serviceKlass    the define interface of the service
+     * @param resultProcessor parameter and result processor for each method
+     * @param options         execution options, null for {@link ServiceOptions#DEFAULT}
+     * @param <T>             type
+     */
+    <T> void registerService(
+        T service,
+        Class<T> serviceKlass,
+        @Nullable Map<String, Function<Object, Object>> resultProcessor,
+        @Nullable ServiceOptions options
+    );
+
     /**
      * service list
      */
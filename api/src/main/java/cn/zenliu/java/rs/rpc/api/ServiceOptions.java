@@ -0,0 +1,78 @@
+package cn.zenliu.java.rs.rpc.api;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Options of a registered service
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-29
+ */
+@Getter
+@Builder(toBuilder = true)
+public class ServiceOptions {
+    public static final ServiceOptions DEFAULT = ServiceOptions.builder().build();
+
+    public enum Execution {
+        /**
+         * run on the transport thread, only for non blocking services
+         */
+        EVENT_LOOP,
+        /**
+         * run on the shared bounded elastic pool, with a queue limit of the service
+         */
+        SHARED,
+        /**
+         * run on a dedicated bounded executor of the service
+         */
+        DEDICATED
+    }
+
+    @Builder.Default final Execution execution = Execution.EVENT_LOOP;
+    /**
+     * threads of {@link Execution#DEDICATED} executor
+     */
+    @Builder.Default final int threads = Runtime.getRuntime().availableProcessors();
+    /**
+     * maximum pending (queued and running) calls, calls beyond are rejected. no effect on {@link Execution#EVENT_LOOP}
+     */
+    @Builder.Default final int queueLimit = 1024;
+    /**
+     * maximum elements of a stream packed into one frame, 1 for no batching
+     */
+    @Builder.Default final int batchSize = 1;
+    /**
+     * maximum time to wait for a batch to be full, null to send a batch only when it's full or the stream completes.
+     * only effective with {@link #batchSize} greater than 1
+     */
+    final Duration batchWindow;
+    /**
+     * max memoized responses of a pure request response method, 0 for no memoization.
+     * a memoized response is returned for equal arguments without invoking the method
+     */
+    @Builder.Default final int memoize = 0;
+    /**
+     * time to live of memoized responses, null for never expire
+     */
+    final Duration memoizeTtl;
+    /**
+     * options override by method name
+     */
+    @Singular final Map<String, ServiceOptions> methods;
+
+    /**
+     * @param method method name
+     * @return options of a method
+     */
+    public ServiceOptions of(@Nullable String method) {
+        final ServiceOptions options = method == null || methods == null ? null : methods.get(method);
+        return options == null ? this : options;
+    }
+}
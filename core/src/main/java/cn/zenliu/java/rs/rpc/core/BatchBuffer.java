@@ -0,0 +1,141 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pack elements into batches by size or by time window, respecting demand of downstream:
+ * at most one batch of elements is requested ahead, a batch of a elapsed window is held until requested.<br>
+ * {@link Flux#bufferTimeout} fails when a window elapsed without demand, so it must be buffered unbounded.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-31
+ */
+final class BatchBuffer<T> extends BaseSubscriber<T> {
+    final FluxSink<List<T>> sink;
+    final int size;
+    final long windowNanos;
+    private List<T> buffer;
+    /**
+     * batches requested by downstream
+     */
+    private long requested;
+    /**
+     * elements requested from upstream but not received
+     */
+    private long outstanding;
+    /**
+     * identity of current batch, a window timer only expires the batch it was started for
+     */
+    private long generation;
+    private boolean expired;
+    private boolean done;
+    private boolean completed;
+    private Disposable timer;
+
+    static <T> Flux<List<T>> of(Flux<T> source, int size, Duration window) {
+        return Flux.create(sink -> source.subscribe(new BatchBuffer<>(sink, size, window)));
+    }
+
+    BatchBuffer(FluxSink<List<T>> sink, int size, Duration window) {
+        this.sink = sink;
+        this.size = Math.max(size, 1);
+        this.windowNanos = window.toNanos();
+        this.buffer = new ArrayList<>(this.size);
+        sink.onRequest(n -> {
+            synchronized (this) {
+                requested = Operators.addCap(requested, n);
+            }
+            drain();
+        });
+        sink.onDispose(this::dispose);
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription) {
+        drain();
+    }
+
+    @Override
+    protected void hookOnNext(T value) {
+        synchronized (this) {
+            outstanding--;
+            buffer.add(value);
+            if (buffer.size() == 1 && windowNanos > 0) {
+                final long current = generation;
+                timer = Schedulers.parallel().schedule(() -> expire(current), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        drain();
+    }
+
+    @Override
+    protected void hookOnComplete() {
+        synchronized (this) {
+            done = true;
+        }
+        drain();
+    }
+
+    @Override
+    protected void hookOnError(Throwable throwable) {
+        synchronized (this) {
+            completed = true;
+            if (timer != null) timer.dispose();
+        }
+        sink.error(throwable);
+    }
+
+    @Override
+    protected void hookOnCancel() {
+        synchronized (this) {
+            if (timer != null) timer.dispose();
+        }
+    }
+
+    void expire(long batch) {
+        synchronized (this) {
+            if (batch != generation) return;
+            expired = true;
+        }
+        drain();
+    }
+
+    void drain() {
+        List<T> batch = null;
+        boolean complete = false;
+        long request = 0;
+        synchronized (this) {
+            if (completed || upstream() == null) return;
+            if (!buffer.isEmpty() && requested > 0 && (buffer.size() >= size || expired || done)) {
+                batch = buffer;
+                buffer = new ArrayList<>(size);
+                requested--;
+                expired = false;
+                generation++;
+                if (timer != null) timer.dispose();
+                timer = null;
+            }
+            if (done) {
+                complete = completed = buffer.isEmpty();
+            } else {
+                request = size - buffer.size() - outstanding;
+                if (request > 0) outstanding += request;
+            }
+        }
+        if (batch != null) sink.next(batch);
+        if (complete) sink.complete();
+        if (request > 0) upstream().request(request);
+    }
+}
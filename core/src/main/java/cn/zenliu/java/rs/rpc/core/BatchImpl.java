@@ -0,0 +1,105 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import cn.zenliu.java.rs.rpc.api.Batch;
+import cn.zenliu.java.rs.rpc.api.Result;
+import mimic.MimicUtil;
+import org.jooq.lambda.Seq;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static cn.zenliu.java.rs.rpc.core.ProxyUtil.*;
+
+/**
+ * Batch implement: the batch request has arguments of {@code [String[] signs, Object[] arguments of each call]},
+ * which is handled by the batch handler of the service domain of first call.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-31
+ */
+final class BatchImpl implements Batch {
+    final ContextScope ctx;
+    final List<String> signs = new ArrayList<>();
+    final List<Object[]> arguments = new ArrayList<>();
+
+    BatchImpl(ContextScope ctx) {
+        this.ctx = ctx;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T record(Class<T> clientKlass) {
+        final Map<Method, String> signatures = new HashMap<>();
+        for (Method m : clientKlass.getMethods()) {
+            if (Modifier.isStatic(m.getModifiers())) continue;
+            signatures.put(m, signature(m, clientKlass));
+        }
+        final String proxyName = clientKlass.getCanonicalName() + "$Batch$" + ctx.getName();
+        return (T) Proxy.newProxyInstance(clientKlass.getClassLoader(), new Class[]{clientKlass}, (p, m, a) -> {
+            if (m.getDeclaringClass() == Object.class) {
+                switch (m.getName()) {
+                    case "toString":
+                        return proxyName;
+                    case "hashCode":
+                        return System.identityHashCode(p);
+                    case "equals":
+                        return p == a[0];
+                    default:
+                        throw new UnsupportedOperationException(m.toString());
+                }
+            }
+            if (Flux.class.isAssignableFrom(m.getReturnType()) || channelIndex(m) >= 0)
+                throw new UnsupportedOperationException("only request response call could be batched: " + m);
+            synchronized (this) {
+                signs.add(signatures.get(m));
+                arguments.add(Request.proc(a == null ? DEFAULT : a));
+            }
+            return defaultOf(m.getReturnType());
+        });
+    }
+
+    static Object defaultOf(Class<?> type) {
+        if (!type.isPrimitive() || type == Void.TYPE) return null;
+        if (type == Boolean.TYPE) return false;
+        if (type == Character.TYPE) return (char) 0;
+        if (type == Byte.TYPE) return (byte) 0;
+        if (type == Short.TYPE) return (short) 0;
+        if (type == Integer.TYPE) return 0;
+        if (type == Long.TYPE) return 0L;
+        if (type == Float.TYPE) return 0F;
+        return 0D;
+    }
+
+    @Override
+    public synchronized int size() {
+        return signs.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public CompletableFuture<List<Result<Object>>> execute() {
+        final String[] signs;
+        final Object[] arguments;
+        synchronized (this) {
+            signs = this.signs.toArray(new String[0]);
+            arguments = this.arguments.toArray();
+        }
+        if (signs.length == 0) return CompletableFuture.completedFuture(Collections.emptyList());
+        //failures of routeing, such as no remote, complete the future
+        return Mono.defer(() -> ctx.routeingRR(batchSign(domainOf(signs[0])), new Object[]{signs, arguments}, ctx.getTimeout().get()))
+            .flatMap(ProxyUtil::unwrap)
+            .map(x -> Seq.seq((List<Result<Object>>) x).map(r -> Rpc.autoDelegate.get() ? r.map(MimicUtil::autoDisguise) : r).toList())
+            .toFuture();
+    }
+
+    @Override
+    public String toString() {
+        return "BATCH@" + ctx.getName() + signs;
+    }
+}
@@ -0,0 +1,116 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import cn.zenliu.java.rs.rpc.api.Result;
+import io.netty.util.Timeout;
+import org.jetbrains.annotations.Nullable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collect keys of concurrent single key calls in a window, then load them by one call of the bulk method.<br>
+ * equal keys of a batch are loaded once, and the result is shared by all their calls.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-31
+ */
+final class BatchLoader {
+    final ContextScope ctx;
+    final String bulkSign;
+    final long window;
+    final int size;
+    final @Nullable Duration timeout;
+    /**
+     * calls of current batch by key
+     */
+    private Map<Object, List<MonoSink<Result<Object>>>> pending = new LinkedHashMap<>();
+    /**
+     * identity of current batch, a window timer only flushes the batch it was started for
+     */
+    private long generation;
+    private @Nullable Timeout timer;
+
+    /**
+     * @param bulkSign sign of the bulk method
+     * @param window   window in milliseconds
+     * @param size     max keys of a bulk call
+     * @param timeout  timeout of a bulk call, null to use the scope one
+     */
+    BatchLoader(ContextScope ctx, String bulkSign, long window, int size, @Nullable Duration timeout) {
+        this.ctx = ctx;
+        this.bulkSign = bulkSign;
+        this.window = Math.max(window, 0);
+        this.size = Math.max(size, 1);
+        this.timeout = timeout;
+    }
+
+    Mono<Result<Object>> load(Object key) {
+        return Mono.create(sink -> {
+            final boolean full;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    final long batch = generation;
+                    timer = Timeouts.TIMER.newTimeout(t -> flush(batch), window, TimeUnit.MILLISECONDS);
+                }
+                pending.computeIfAbsent(key, k -> new ArrayList<>(1)).add(sink);
+                full = pending.size() >= size;
+            }
+            if (full) flush(-1);
+        });
+    }
+
+    /**
+     * @param batch generation of the batch to flush, -1 for current one
+     */
+    void flush(long batch) {
+        final Map<Object, List<MonoSink<Result<Object>>>> calls;
+        synchronized (this) {
+            if (pending.isEmpty() || (batch >= 0 && batch != generation)) return;
+            calls = pending;
+            pending = new LinkedHashMap<>();
+            generation++;
+            if (timer != null) timer.cancel();
+            timer = null;
+        }
+        final List<List<MonoSink<Result<Object>>>> sinks = new ArrayList<>(calls.values());
+        try {
+            ctx.routeingRR(bulkSign, new Object[]{new ArrayList<>(calls.keySet())}, timeout != null ? timeout : ctx.getTimeout().get())
+                .subscribe(r -> dispatch(r, sinks), e -> dispatch(Result.error(e), sinks));
+        } catch (Exception e) {
+            dispatch(Result.error(e), sinks);
+        }
+    }
+
+    /**
+     * @param sinks calls of each key, in order of keys
+     */
+    static void dispatch(Result<Object> result, List<List<MonoSink<Result<Object>>>> sinks) {
+        if (result.hasError()) {
+            sinks.forEach(x -> x.forEach(s -> s.success(Result.error(result.getError()))));
+            return;
+        }
+        final Object values = result.getResult();
+        if (!(values instanceof List) || ((List<?>) values).size() != sinks.size()) {
+            final IllegalStateException error = new IllegalStateException("bulk call should return a List of " + sinks.size() + " results, but got " + values);
+            sinks.forEach(x -> x.forEach(s -> s.success(Result.error(error))));
+            return;
+        }
+        final List<?> list = (List<?>) values;
+        for (int i = 0; i < sinks.size(); i++) {
+            final Result<Object> r = Result.ok(list.get(i));
+            sinks.get(i).forEach(s -> s.success(r));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LOADER@" + bulkSign + "{window=" + window + ", size=" + size + '}';
+    }
+}
@@ -0,0 +1,131 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import cn.zenliu.java.rs.rpc.api.ServiceOptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Execution isolation of service handlers: runs calls on a scheduler with a limit of pending calls.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-29
+ */
+public final class Bulkhead {
+    final String name;
+    final ServiceOptions.Execution execution;
+    final int queueLimit;
+    final Scheduler scheduler;
+    /**
+     * dedicated executor, null for shared
+     */
+    final ThreadPoolExecutor executor;
+    final AtomicInteger pending = new AtomicInteger();
+    final LongAdder executed = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+
+    Bulkhead(String name, ServiceOptions options) {
+        this.name = name;
+        this.execution = options.getExecution();
+        this.queueLimit = Math.max(options.getQueueLimit(), 1);
+        if (execution == ServiceOptions.Execution.DEDICATED) {
+            final AtomicInteger counter = new AtomicInteger();
+            final int threads = Math.max(options.getThreads(), 1);
+            executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                final Thread t = new Thread(r, "rpc-" + name + "-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            scheduler = Schedulers.fromExecutorService(executor, name);
+        } else {
+            executor = null;
+            scheduler = Schedulers.boundedElastic();
+        }
+    }
+
+    /**
+     * @return null for {@link ServiceOptions.Execution#EVENT_LOOP}
+     */
+    static Bulkhead of(String name, ServiceOptions options) {
+        return options.getExecution() == ServiceOptions.Execution.EVENT_LOOP ? null : new Bulkhead(name, options);
+    }
+
+    private boolean acquire() {
+        if (pending.incrementAndGet() > queueLimit) {
+            pending.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        executed.increment();
+        return true;
+    }
+
+    private RejectedExecutionException rejection() {
+        return new RejectedExecutionException("bulkhead " + name + " is full with " + queueLimit + " pending calls");
+    }
+
+    public <T> Mono<T> mono(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            if (!acquire()) return Mono.error(rejection());
+            return Mono.defer(call).subscribeOn(scheduler).doFinally(s -> pending.decrementAndGet());
+        });
+    }
+
+    public <T> Flux<T> flux(Supplier<Flux<T>> call) {
+        return Flux.defer(() -> {
+            if (!acquire()) return Flux.error(rejection());
+            return Flux.defer(call).subscribeOn(scheduler).doFinally(s -> pending.decrementAndGet());
+        });
+    }
+
+    /**
+     * @return queued and running calls
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    public Map<String, Object> dump() {
+        final Map<String, Object> map = new HashMap<>();
+        map.put("execution", execution);
+        map.put("queueLimit", queueLimit);
+        map.put("pending", pending.get());
+        map.put("executed", executed.sum());
+        map.put("rejected", rejected.sum());
+        if (executor != null) {
+            map.put("queued", executor.getQueue().size());
+            map.put("active", executor.getActiveCount());
+        }
+        return map;
+    }
+
+    void dispose() {
+        if (executor != null) scheduler.dispose();
+    }
+
+    @Override
+    public String toString() {
+        return "BULKHEAD@" + name + dump();
+    }
+}
@@ -3,8 +3,9 @@ package cn.zenliu.java.rs.rpc.core;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Map;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static cn.zenliu.java.rs.rpc.core.ContextRoutes.deRouteMark;
 import static cn.zenliu.java.rs.rpc.core.ScopeContextImpl.ROUTE_MARK;
 
 /**
@@ -13,67 +14,74 @@ import static cn.zenliu.java.rs.rpc.core.ScopeContextImpl.ROUTE_MARK;
  * @since 2021-01-23
  */
 interface ContextRemoteServices extends ContextRemotes {
-    Map<Integer, ConcurrentSkipListSet<Remote>> getRemoteServices();
+    /**
+     * remote sets of service domains, route marked domains are resolvable by alias of the plain domain
+     */
+    Registry<RemoteGroup> getRemoteServices();
 
-    UniqueList getDomains();
+    /**
+     * scope load balancer
+     */
+    AtomicReference<LoadBalancer> getLoadBalancer();
 
-    default int getOrAddDomain(String domain) {
-        return getDomains().getOrAdd(domain);
+    /**
+     * domain load balancers, applies to the route marked domain too
+     */
+    Map<String, LoadBalancer> getDomainBalancers();
+
+    default void setDomainBalancer(String domain, @Nullable LoadBalancer balancer) {
+        if (balancer == null) getDomainBalancers().remove(domain);
+        else getDomainBalancers().put(domain, balancer);
+        getRemoteServices().forEach((k, v) -> {
+            if (v != null && (k.equals(domain) || deRouteMark(k).equals(domain))) v.balancer = balancer;
+        });
     }
 
     default @Nullable Remote findRemoteService(String domain) {
-        onDebug("before findRouteDomain {} in {}", domain, getDomains());
-        int index = getDomains().indexOf(domain);
-        if (index == -1 && !isRoute()) {
-            onDebug("find no domain {} in {} with no routeing enabled.", domain, getDomains());
-            return null;
-        } else if (index == -1) {
-            onDebug("try find domain {} in {} with routeing", domain + ROUTE_MARK, getDomains());
-            index = getDomains().indexOf(domain + ROUTE_MARK);
-        }
+        onDebug("before findRouteDomain {} in {}", domain, getRemoteServices());
+        final int index = isRoute() ? getRemoteServices().resolve(domain) : getRemoteServices().indexOf(domain);
         if (index == -1) {
-            onDebug("find no domain {} in {} with routeing", domain + ROUTE_MARK, getDomains());
+            onDebug("find no domain {} in {} with routeing {}", domain, getRemoteServices(), isRoute());
             return null;
         }
-        final ConcurrentSkipListSet<Remote> remotes = getRemoteServices().get(index);
-        if (remotes.isEmpty()) {
-            onDebug("find domain {} in {} with routeing, but found no Remote exists in {}!", domain + ROUTE_MARK, getDomains(), getRemoteServices());
-            return null;
+        final RemoteGroup remotes = getRemoteServices().get(index);
+        final Remote remote = remotes == null ? null : remotes.select(getLoadBalancer().get());
+        if (remote == null) {
+            onDebug("find domain {} in {}, but found no Remote exists!", domain, getRemoteServices());
         }
-        return remotes.first();
+        return remote;
     }
 
     default boolean updateRemoteService(Remote newRemote, Remote oldRemote) {
         boolean updated = false;
-        onDebug("before update remote service: {} to {} \n {} {}", newRemote, oldRemote, getDomains(), getRemoteServices());
+        onDebug("before update remote service: {} to {} \n {}", newRemote, oldRemote, getRemoteServices());
         if (oldRemote != null) {
             oldRemote.service.forEach(v -> removeOldRemoteService(v, oldRemote));
         }
-        onDebug("after remove old when update remote service: {} to {} \n {} {}", newRemote, oldRemote, getDomains(), getRemoteServices());
+        onDebug("after remove old when update remote service: {} to {} \n {}", newRemote, oldRemote, getRemoteServices());
         for (String domain : newRemote.service) {
             onDebug("before register remote {} with service {}", newRemote.name, domain);
-            final int index = getOrAddDomain(domain);
-            ConcurrentSkipListSet<Remote> remotes = getRemoteServices().get(index);
-            if (remotes == null) {
-                updated = true;//a new Domain found
-                remotes = new ConcurrentSkipListSet<>(Remote.weightComparator);
-                getRemoteServices().put(index, remotes);
-            }
-            remotes.add(newRemote);
+            if (!getRemoteServices().contains(domain)) updated = true;//a new Domain found
+            getRemoteServices().computeIfAbsent(domain, this::newRemoteGroup).add(newRemote);
         }
-        onDebug("after update remote service: \n {} to {} \n {} {} \n domain update status:{}", oldRemote, newRemote, getDomains(), getRemoteServices(), updated);
+        onDebug("after update remote service: \n {} to {} \n {} \n domain update status:{}", oldRemote, newRemote, getRemoteServices(), updated);
         return updated;
     }
 
+    default RemoteGroup newRemoteGroup(String domain) {
+        final RemoteGroup group = new RemoteGroup();
+        LoadBalancer balancer = getDomainBalancers().get(domain);
+        if (balancer == null) balancer = getDomainBalancers().get(deRouteMark(domain));
+        group.balancer = balancer;
+        return group;
+    }
+
     default void removeOldRemoteService(String domain, Remote oldRemote) {
-        int index = getDomains().indexOf(domain);
-        if (index == -1 && !isRoute()) return;
-        getRemoteServices().get(index).remove(oldRemote);
-        if (isRoute()) index = getDomains().indexOf(domain + ROUTE_MARK);
-        if (index == -1) return;
-        getRemoteServices().get(index).remove(oldRemote);
+        RemoteGroup remotes = getRemoteServices().find(domain);
+        if (remotes != null) remotes.remove(oldRemote);
+        if (!isRoute()) return;
+        remotes = getRemoteServices().find(domain + ROUTE_MARK);
+        if (remotes != null) remotes.remove(oldRemote);
     }
 
 }
-
-
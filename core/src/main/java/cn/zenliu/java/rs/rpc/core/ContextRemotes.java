@@ -12,8 +12,15 @@ interface ContextRemotes extends Context {
 
     UniqueList getRemoteNames();
 
+    /**
+     * replicas may share one name, a duplicated name is suffixed to keep a slot for each remote
+     */
     default int prepareRemoteName(String name) {
-        return getRemoteNames().prepare(name);
+        int idx = getRemoteNames().prepare(name);
+        for (int n = 1; idx == -1; n++) {
+            idx = getRemoteNames().prepare(name + "@" + n);
+        }
+        return idx;
     }
 
 }
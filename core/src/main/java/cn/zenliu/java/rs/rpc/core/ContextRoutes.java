@@ -2,10 +2,10 @@ package cn.zenliu.java.rs.rpc.core;
 
 
 import io.rsocket.Payload;
-import io.rsocket.util.DefaultPayload;
+import io.netty.buffer.Unpooled;
+import io.rsocket.util.ByteBufPayload;
 import org.jetbrains.annotations.Nullable;
 
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -32,7 +32,7 @@ interface ContextRoutes extends ContextRemoteServices, ContextServices {
     AtomicReference<Set<String>> getRoutes();
 
     default void updateRoutes(Remote... exclude) {
-        final Set<String> routes = getServiceName(isRoute() ? getDomains() : null);
+        final Set<String> routes = getServiceName(isRoute() ? getRemoteServices() : null);
         onDebug("update routes {} to {} ", () -> new Object[]{getRoutes().get(), routes});
         getRoutes().set(routes);
         syncServMeta(exclude);
@@ -53,9 +53,10 @@ interface ContextRoutes extends ContextRemoteServices, ContextServices {
         }
         final ServMeta.ServMetaBuilder builder = ServMeta.builder()
             .name(getName())
-            .service(service);
+            .service(service)
+            .signs(getSignIds());
         if (forRemote != null) builder.known(forRemote.service);
-        return DefaultPayload.create(DefaultPayload.EMPTY_BUFFER, ByteBuffer.wrap(Proto.to(builder.build())));
+        return ByteBufPayload.create(Unpooled.EMPTY_BUFFER, Proto.toBuf(builder.build()));
     }
 
     default void processRemoteUpdate(Remote in, Remote old, boolean known) {
@@ -116,11 +117,4 @@ interface ContextRoutes extends ContextRemoteServices, ContextServices {
         target.pushServMeta(servMeta == null ? buildServMeta(target) : servMeta);
     }
 
-    @Override
-    default boolean addService(Class<?> clazz, Object service) {
-        final boolean r = ContextServices.super.addService(clazz, service);
-        if (r) updateRoutes();
-        return r;
-    }
 }
-
@@ -1,13 +1,24 @@
 package cn.zenliu.java.rs.rpc.core;
 
+import cn.zenliu.java.rs.rpc.api.Cached;
 import cn.zenliu.java.rs.rpc.api.Result;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import io.rsocket.Payload;
+import io.rsocket.util.ByteBufPayload;
+import mimic.MimicUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jooq.lambda.tuple.Tuple2;
 import org.jooq.lambda.tuple.Tuple3;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 import static cn.zenliu.java.rs.rpc.core.FunctorPayload.mustRequest;
@@ -25,7 +36,45 @@ public interface ContextScope extends ContextRoutes {
     String LOG_META_REQUEST = "\n META:{}\n REQUEST: {}\n SERVICE: {}";
 
 
+    /**
+     * result caches of client methods, by sign
+     */
+    Map<String, LruCache<LruCache.Key, Result<Object>>> getClientCaches();
+
+    default LruCache<LruCache.Key, Result<Object>> prepareClientCache(String sign, Cached cached) {
+        return getClientCaches().computeIfAbsent(sign, x -> new LruCache<>(cached.maxEntries(), Duration.ofMillis(cached.ttl())));
+    }
+
+    /**
+     * @param prefix prefix of signs
+     */
+    default void invalidateClientCaches(String prefix) {
+        onDebug("invalidate client caches of {}", prefix);
+        getClientCaches().forEach((sign, cache) -> {
+            if (sign.startsWith(prefix)) cache.clear();
+        });
+    }
+
+    /**
+     * push a invalidation of client caches to remotes
+     *
+     * @param prefixes prefixes of signs
+     * @param exclude  the remote the invalidation comes from
+     */
+    default void pushInvalidation(Set<String> prefixes, @Nullable Remote exclude) {
+        final ServMeta meta = ServMeta.builder().name(getName()).evict(prefixes).build();
+        getRemotes().forEach((i, remote) -> {
+            if (exclude == null || remote.socket != exclude.socket)
+                remote.pushServMeta(ByteBufPayload.create(Unpooled.EMPTY_BUFFER, Proto.toBuf(meta)));
+        });
+    }
+
     default void onServMeta(Tuple2<@NotNull ServMeta, @NotNull Remote> in) {
+        if (in.v1.evict != null) {
+            in.v1.evict.forEach(this::invalidateClientCaches);
+            if (isRoute()) pushInvalidation(in.v1.evict, in.v2);
+            return;
+        }
         final Tuple3<Remote, @NotNull Remote, Boolean> r = in.map1(in.v2::updateFromMeta).concat(in.v1.isKnown(getRoutes().get()));
         processRemoteUpdate(r.v1, r.v2, r.v3);
 
@@ -34,7 +83,13 @@ public interface ContextScope extends ContextRoutes {
     default Mono<Void> onFNF(@NotNull Tuple2<Meta, Payload> in, Remote remote) {
         final Meta meta = in.v1;
         onDebug("begin to process FireAndForget:" + LOG_META, meta, remote);
-        final Function<Object[], Result<Object>> handler = findHandler(meta.sign);
+        if (meta.isExpired()) {
+            onDebug("drop expired FireAndForget:" + LOG_META, meta, remote);
+            in.v2.release();
+            return Mono.empty();
+        }
+        final Function<Object[], Mono<Result<Object>>> handler = findHandler(meta);
+        final String sign = handler == null ? signOf(getHandlers(), meta) : null;
         if (handler != null) {
             final Request request = mustRequest(in.v2);
             onDebugWithTimer(
@@ -42,25 +97,26 @@ public interface ContextScope extends ContextRoutes {
                 , null
                 , x -> {
                     try {
-                        handler.apply(request.getArguments());
-                        if ((getDebug().get() || getTrace().get()) || meta.trace) {
-                            x.info("remote trace \n META: {} \n TIME COST: {}", meta, meta.costNow());
-                        }
+                        handler.apply(request.getArguments()).subscribe(res -> {
+                            if ((getDebug().get() || getTrace().get()) || meta.trace) {
+                                x.info("remote trace \n META: {} \n TIME COST: {}", meta, meta.costNow());
+                            }
+                        }, e -> x.error("error to process FireAndForget:" + LOG_META_REQUEST, meta, request, remote, e));
                     } catch (Exception e) {
                         x.error("error to process FireAndForget:" + LOG_META_REQUEST, meta, request, remote, e);
                     }
                 });
             return Mono.empty();
-        } else if (isRoute()) {
-            final String domain = domainOf(meta.sign);
-            final Remote service = findRemoteService(domain);
+        } else if (isRoute() && sign != null) {
+            final Remote service = findRemoteService(domainOf(sign));
             if (service != null) {
                 onDebugElse(x -> x.debug("routeing FireAndForget:" + LOG_META + "\n NEXT:{}", meta, remote, service)
                     , x -> x.debug("routeing FireAndForget:" + LOG_META + "\n NEXT:{}", meta, remote.name, service.name));
-                return service.socket.fireAndForget(Request.updateMeta(in.v2, meta, meta.trace ? getName() : getNameOnTrace()));
+                return service.socket.fireAndForget(Request.updateMeta(in.v2, meta.routeTo(sign, service), meta.trace ? getName() : getNameOnTrace()));
             }
         }
         error("none registered FireAndForget:" + LOG_META, meta, remote);
+        in.v2.release();
         return Mono.empty();
     }
 
@@ -75,30 +131,57 @@ public interface ContextScope extends ContextRoutes {
         final Meta meta = in.v1;
         final Payload p = in.v2;
         onDebug("process RequestAndResponse:" + LOG_META, meta, remote);
-        final Function<Object[], Result<Object>> handler = findHandler(meta.sign);
+        if (meta.isExpired()) {
+            onDebug("reject expired RequestAndResponse:" + LOG_META, meta, remote);
+            p.release();
+            return Mono.just(Response.build(meta, getName(), Result.error(new DeadlineExceededException(meta + " expired on " + getName()))));
+        }
+        final Function<Object[], Mono<Result<Object>>> handler = findHandler(meta);
+        final String sign = handler == null ? signOf(getHandlers(), meta) : null;
         if (handler != null) {
+            final LruCache<LruCache.Key, byte[]> memo = findMemo(meta);
+            final LruCache.Key key = memo == null ? null : new LruCache.Key(ByteBufUtil.getBytes(p.sliceData()));
+            if (key != null) {
+                final byte[] hit = memo.get(key);
+                if (hit != null) {
+                    p.release();
+                    onDebug("memoized RequestAndResponse:" + LOG_META, meta, remote);
+                    return Mono.just(Response.build(meta, (getDebug().get() || getTrace().get() || meta.trace) ? getName() : null, hit));
+                }
+            }
             final Request request = mustRequest(p);
             return onDebugWithTimerReturns(
                 x -> x.debug("process RequestAndResponse:" + LOG_META_REQUEST, meta, request, remote)
                 , null
                 , x -> {
                     try {
-                        final Result<Object> res = handler.apply(request.getArguments());
-                        return Mono.just(Response.build(meta, (getDebug().get() || getTrace().get() || meta.trace) ? getName() : null, res != null ? res : Result.ok(null)));
+                        return handler.apply(request.getArguments())
+                            .map(res -> {
+                                final String name = (getDebug().get() || getTrace().get() || meta.trace) ? getName() : null;
+                                if (key == null || res.hasError()) return Response.build(meta, name, res);
+                                final byte[] data = Response.encode(res);
+                                memo.put(key, data);
+                                return Response.build(meta, name, data);
+                            })
+                            .onErrorResume(ex -> {
+                                x.error("error on process RequestAndResponse:" + LOG_META_REQUEST, meta, request, remote, ex);
+                                return Mono.just(Response.build(meta, getName(), Result.error(ex)));
+                            })
+                            .doOnCancel(() -> x.debug("cancelled RequestAndResponse:" + LOG_META, meta, remote));
                     } catch (Exception ex) {
                         x.error("error on process RequestAndResponse:" + LOG_META_REQUEST, meta, request, remote, ex);
                         return Mono.just(Response.build(meta, getName(), Result.error(ex)));
                     }
                 }
             );
-        } else if (isRoute()) {
-            final String domain = domainOf(meta.sign);
-            final Remote service = findRemoteService(domain);
+        } else if (isRoute() && sign != null) {
+            final Remote service = findRemoteService(domainOf(sign));
             if (service != null) {
                 onDebugElse(x -> x.debug("routeing RequestAndResponse:" + LOG_META + "\n NEXT:{}", meta, remote, service)
                     , x -> x.debug("routeing RequestAndResponse:" + LOG_META + "\n NEXT:{}", meta, remote.name, service.name));
                 try {
-                    return service.socket.requestResponse(Request.updateMeta(p, meta, meta.trace ? getName() : getNameOnTrace()));
+                    final Mono<Payload> forward = service.stats.track(service.socket.requestResponse(Request.updateMeta(p, meta.routeTo(sign, service), meta.trace ? getName() : getNameOnTrace())));
+                    return meta.hasDeadline() ? Timeouts.timeout(forward, Duration.ofNanos(meta.remaining())) : forward;
                 } catch (Exception ex) {
                     error(" on process routeing RequestAndResponse:" + LOG_META, meta, remote, ex);
                     return Mono.just(Response.build(meta, getName(), Result.error(ex)));
@@ -106,8 +189,9 @@ public interface ContextScope extends ContextRoutes {
             }
         }
         error("none registered RequestAndResponse:" + LOG_META, meta, remote);
-        return Mono.just(Response.build(meta, getName(), Result.error(new IllegalStateException("no such method '" + meta.sign + "' on " +
-            getName() + ",I supports " + getRoutes().get() + " with routeing " + isRoute() + (isRoute() ? (" and with routes " + getDomains()) : "")))));
+        p.release();
+        return Mono.just(Response.build(meta, getName(), Result.error(new IllegalStateException("no such method '" + (sign != null ? sign : meta) + "' on " +
+            getName() + ",I supports " + getRoutes().get() + " with routeing " + isRoute() + (isRoute() ? (" and with routes " + getRemoteServices().keys()) : "")))));
     }
 
     /**
@@ -117,7 +201,13 @@ public interface ContextScope extends ContextRoutes {
         final Meta meta = in.v1;
         final Payload p = in.v2;
         onDebug("process RequestStream:" + LOG_META, meta, remote);
-        final Function<Object[], Flux<Object>> handler = findStreamHandler(meta.sign);
+        if (meta.isExpired()) {
+            onDebug("reject expired RequestStream:" + LOG_META, meta, remote);
+            p.release();
+            return Flux.error(new DeadlineExceededException(meta + " expired on " + getName()));
+        }
+        final Function<Object[], Flux<Object>> handler = findStreamHandler(meta);
+        final String sign = handler == null ? signOf(getStreamHandlers(), meta) : null;
         if (handler != null) {
             final Request request = mustRequest(p);
             return onDebugWithTimerReturns(
@@ -125,26 +215,23 @@ public interface ContextScope extends ContextRoutes {
                 , null
                 , x -> {
                     try {
-                        return handler.apply(request.getArguments()).switchOnFirst((s, f) ->
-                            //switch element process first one have a meta
-                            s.hasValue() ?
-                                Flux.just(Response.buildFirstElement(meta, (getDebug().get() || getTrace().get() || meta.trace) ? getName() : null, s.get()))
-                                    .concatWith(f.map(Response::buildElement)) :
-                                f.map(Response::buildElement));
+                        return encodeElements(meta, handler.apply(request.getArguments()))
+                            .doOnCancel(() -> x.debug("cancelled RequestStream:" + LOG_META, meta, remote));
                     } catch (Exception ex) {
                         x.error("error on process RequestStream:" + LOG_META_REQUEST, meta, request, remote, ex);
                         return Flux.error(ex);
                     }
                 }
             );
-        } else if (isRoute()) {
-            final String domain = domainOf(meta.sign);
-            final Remote service = findRemoteService(domain);
+        } else if (isRoute() && sign != null) {
+            final Remote service = findRemoteService(domainOf(sign));
             if (service != null) {
                 onDebugElse(x -> x.debug("routeing RequestStream:" + LOG_META + "\n NEXT:{}", meta, remote, service)
                     , x -> x.debug("routeing RequestStream:" + LOG_META + "\n NEXT:{}", meta, remote.name, service.name));
                 try {
-                    return service.socket.requestStream(Request.updateMeta(p, meta, meta.trace ? getName() : getNameOnTrace()));
+                    final Flux<Payload> forward = service.stats.track(service.socket.requestStream(Request.updateMeta(p, meta.routeTo(sign, service), meta.trace ? getName() : getNameOnTrace())));
+                    //a stream lives beyond the deadline, which bounds the first response only
+                    return meta.hasDeadline() ? Timeouts.timeoutFirst(forward, Duration.ofNanos(meta.remaining())) : forward;
                 } catch (Exception ex) {
                     error(" on process routeing RequestStream:" + LOG_META, meta, remote, ex);
                     return Flux.error(ex);
@@ -152,8 +239,103 @@ public interface ContextScope extends ContextRoutes {
             }
         }
         error("none registered RequestStream:" + LOG_META, meta, remote);
-        return Flux.error(new IllegalStateException("no such method '" + meta.sign + "' on " +
-            getName() + ",I supports " + getRoutes().get() + " with routeing " + isRoute() + (isRoute() ? (" and with routes " + getDomains()) : "")));
+        p.release();
+        return Flux.error(new IllegalStateException("no such method '" + (sign != null ? sign : meta) + "' on " +
+            getName() + ",I supports " + getRoutes().get() + " with routeing " + isRoute() + (isRoute() ? (" and with routes " + getRemoteServices().keys()) : "")));
+    }
+
+    /**
+     * encode outbound elements, the first one carries the meta
+     */
+    default Flux<Payload> encodeElements(Meta meta, Flux<Object> elements) {
+        return elements.switchOnFirst((s, f) ->
+            //switch element process first one have a meta
+            s.hasValue() ?
+                Flux.just(Response.buildFirstElement(meta, (getDebug().get() || getTrace().get() || meta.trace) ? getName() : null, s.get()))
+                    .concatWith(f.skip(1).map(Response::buildElement)) :
+                f.map(Response::buildElement));
+    }
+
+    /**
+     * handle rc request
+     *
+     * @param in      the first payload, which is a request
+     * @param inbound the following payloads, which are elements
+     */
+    default Flux<Payload> onRC(Tuple2<Meta, Payload> in, Flux<Payload> inbound, Remote remote) {
+        final Meta meta = in.v1;
+        final Payload p = in.v2;
+        onDebug("process RequestChannel:" + LOG_META, meta, remote);
+        if (meta.isExpired()) {
+            onDebug("reject expired RequestChannel:" + LOG_META, meta, remote);
+            p.release();
+            return Flux.error(new DeadlineExceededException(meta + " expired on " + getName()));
+        }
+        final BiFunction<Object[], Flux<Object>, Flux<Object>> handler = findChannelHandler(meta);
+        final String sign = handler == null ? signOf(getChannelHandlers(), meta) : null;
+        if (handler != null) {
+            final Request request = mustRequest(p);
+            return onDebugWithTimerReturns(
+                x -> x.debug("process RequestChannel:" + LOG_META_REQUEST, meta, request, remote)
+                , null
+                , x -> {
+                    try {
+                        return encodeElements(meta, handler.apply(request.getArguments(), inbound.concatMapIterable(Response::parseElements)))
+                            .doOnCancel(() -> x.debug("cancelled RequestChannel:" + LOG_META, meta, remote));
+                    } catch (Exception ex) {
+                        x.error("error on process RequestChannel:" + LOG_META_REQUEST, meta, request, remote, ex);
+                        return Flux.error(ex);
+                    }
+                }
+            );
+        } else if (isRoute() && sign != null) {
+            final Remote service = findRemoteService(domainOf(sign));
+            if (service != null) {
+                onDebugElse(x -> x.debug("routeing RequestChannel:" + LOG_META + "\n NEXT:{}", meta, remote, service)
+                    , x -> x.debug("routeing RequestChannel:" + LOG_META + "\n NEXT:{}", meta, remote.name, service.name));
+                try {
+                    //elements are forwarded as is
+                    final Flux<Payload> forward = service.stats.track(service.socket.requestChannel(
+                        Flux.just(Request.updateMeta(p, meta.routeTo(sign, service), meta.trace ? getName() : getNameOnTrace())).concatWith(inbound)));
+                    return meta.hasDeadline() ? Timeouts.timeoutFirst(forward, Duration.ofNanos(meta.remaining())) : forward;
+                } catch (Exception ex) {
+                    error(" on process routeing RequestChannel:" + LOG_META, meta, remote, ex);
+                    return Flux.error(ex);
+                }
+            }
+        }
+        error("none registered RequestChannel:" + LOG_META, meta, remote);
+        p.release();
+        return Flux.error(new IllegalStateException("no such method '" + (sign != null ? sign : meta) + "' on " +
+            getName() + ",I supports " + getRoutes().get() + " with routeing " + isRoute() + (isRoute() ? (" and with routes " + getRemoteServices().keys()) : "")));
+    }
+
+    /**
+     * handle a batch: calls are fan out to local handlers, or routed if not local, concurrently.<br>
+     * each local call runs on the execution of its handler (see {@link cn.zenliu.java.rs.rpc.api.ServiceOptions#getExecution()}),
+     * results are in order of calls, a failed call does not fail others.
+     *
+     * @param args signs of calls and arguments of calls, see {@link BatchImpl}
+     * @return result of the list of call results
+     */
+    default Mono<Result<Object>> onBatch(Object[] args) {
+        final String[] signs = (String[]) args[0];
+        final Object[] arguments = (Object[]) args[1];
+        return Flux.range(0, signs.length)
+            .flatMapSequential(i -> onBatchCall(signs[i], Request.restore((Object[]) arguments[i])))
+            .collectList()
+            .map(Result::ok);
+    }
+
+    default Mono<Result<Object>> onBatchCall(String sign, Object[] args) {
+        final Function<Object[], Mono<Result<Object>>> handler = findHandler(sign);
+        final Mono<Result<Object>> call;
+        if (handler != null) call = Mono.defer(() -> handler.apply(args));
+        else if (isRoute() && findRemoteService(domainOf(sign)) != null) call = Mono.defer(() -> routeingRR(sign, args));
+        else call = Mono.just(Result.error(new IllegalStateException("no such method '" + sign + "' on " + getName())));
+        return call
+            .onErrorResume(e -> Mono.just(Result.error(e)))
+            .map(r -> Rpc.autoDelegate.get() ? r.map(MimicUtil::autoMimic) : r);
     }
 
     /**
@@ -164,16 +346,29 @@ public interface ContextScope extends ContextRoutes {
      * @return Result
      */
     default Mono<Result<Object>> routeingRR(String sign, Object[] args) {
+        return routeingRR(sign, args, null);
+    }
+
+    /**
+     * a method to fire a RR request to remote with a deadline
+     *
+     * @param sign    handler signature
+     * @param args    args
+     * @param timeout timeout of the call, also the deadline carried to remote. null for none
+     * @return Result
+     */
+    default Mono<Result<Object>> routeingRR(String sign, Object[] args, @Nullable Duration timeout) {
+        final long deadline = Timeouts.deadlineOf(timeout);
         final String domain = domainOf(sign);
         final Remote remote = findRemoteService(domain);
         if (remote == null) {
-            error("not found remote service of {}[{}]  with routes {}", sign, domain, getDomains());
+            error("not found remote service of {}[{}]  with routes {}", sign, domain, getRemoteServices().keys());
             throw new IllegalStateException("not exists service for '" + sign + "' in " + getName());
         }
         return onDebugWithTimerReturns(
             x -> x.debug("remote call \n DOMAIN: {} \n ARGUMENTS: {} .", sign, args)
             , null
-            , x -> remote.socket.requestResponse(Request.build(sign, getName(), args, getTrace().get()))
+            , x -> Timeouts.timeout(remote.stats.track(remote.socket.requestResponse(Request.build(sign, remote.methodOf(sign), getName(), args, getTrace().get(), deadline))), timeout)
                 .map(result -> {
                     if ((getDebug().get() || getTrace().get()) && result != null) {
                         final Meta meta = Response.parseMeta(result);
@@ -198,16 +393,28 @@ public interface ContextScope extends ContextRoutes {
      * @return Result
      */
     default Flux<Object> routeingRS(String sign, Object[] args) {
+        return routeingRS(sign, args, 0);
+    }
+
+    /**
+     * a method to fire a RS request to remote with a limited demand
+     *
+     * @param sign     handler signature
+     * @param args     args
+     * @param prefetch max demand of elements requested from remote at once, replenished when 75% consumed. 0 for default
+     * @return Result
+     */
+    default Flux<Object> routeingRS(String sign, Object[] args, int prefetch) {
         final String domain = domainOf(sign);
         final Remote remote = findRemoteService(domain);
         if (remote == null) {
-            error("not found remote service of {}[{}]  with routes {}", sign, domain, getDomains());
+            error("not found remote service of {}[{}]  with routes {}", sign, domain, getRemoteServices().keys());
             throw new IllegalStateException("not exists service for '" + sign + "' in " + getName());
         }
         return onDebugWithTimerReturns(
             x -> x.debug("remote call \n DOMAIN: {} \n ARGUMENTS: {} .", sign, args)
             , null
-            , x -> remote.socket.requestStream(Request.build(sign, getName(), args, getTrace().get()))
+            , x -> limitRate(remote.stats.track(remote.socket.requestStream(Request.build(sign, remote.methodOf(sign), getName(), args, getTrace().get()))), prefetch)
                 .switchOnFirst((signal, flux) -> {
                     if (signal.hasValue()) {
                         final Payload result = signal.get();
@@ -216,12 +423,56 @@ public interface ContextScope extends ContextRoutes {
                             x.info("remote trace \n ARGUMENTS: {} \n META: {} \n  COST: SEND {} ,TOTAL {}", args, meta, meta.cost(), meta.costNow());
                         }
                         assert result != null;
-                        return Flux.just(Response.parseElement(result)).concatWith(flux.map(Response::parseElement));
-                    } else return flux.map(Response::parseElement);
+                        return Flux.fromIterable(Response.parseElements(result)).concatWith(flux.skip(1).concatMapIterable(Response::parseElements));
+                    } else return flux.concatMapIterable(Response::parseElements);
                 })
         );
     }
 
+    /**
+     * a method to fire a RC request to remote
+     *
+     * @param sign     handler signature
+     * @param args     args, the element at index is the outbound publisher
+     * @param index    index of the outbound publisher in args
+     * @param prefetch max demand of elements requested from remote at once, replenished when 75% consumed. 0 for default
+     * @return inbound elements
+     */
+    @SuppressWarnings("unchecked")
+    default Flux<Object> routeingRC(String sign, Object[] args, int index, int prefetch) {
+        final String domain = domainOf(sign);
+        final Remote remote = findRemoteService(domain);
+        if (remote == null) {
+            error("not found remote service of {}[{}]  with routes {}", sign, domain, getRemoteServices().keys());
+            throw new IllegalStateException("not exists service for '" + sign + "' in " + getName());
+        }
+        final Publisher<Object> outbound = (Publisher<Object>) args[index];
+        final Object[] arguments = args.clone();
+        arguments[index] = null;
+        return onDebugWithTimerReturns(
+            x -> x.debug("remote call \n DOMAIN: {} \n ARGUMENTS: {} .", sign, arguments)
+            , null
+            , x -> limitRate(remote.stats.track(remote.socket.requestChannel(
+                Flux.defer(() -> Flux.just(Request.build(sign, remote.methodOf(sign), getName(), arguments, getTrace().get())))
+                    .concatWith(Flux.from(outbound).map(Response::buildElement)))), prefetch)
+                .switchOnFirst((signal, flux) -> {
+                    if (signal.hasValue()) {
+                        final Payload result = signal.get();
+                        if ((getDebug().get() || getTrace().get()) && result != null) {
+                            final Meta meta = Response.parseMeta(result);
+                            x.info("remote trace \n ARGUMENTS: {} \n META: {} \n  COST: SEND {} ,TOTAL {}", arguments, meta, meta.cost(), meta.costNow());
+                        }
+                        assert result != null;
+                        return Flux.fromIterable(Response.parseElements(result)).concatWith(flux.skip(1).concatMapIterable(Response::parseElements));
+                    } else return flux.concatMapIterable(Response::parseElements);
+                })
+        );
+    }
+
+    static <T> Flux<T> limitRate(Flux<T> flux, int prefetch) {
+        return prefetch > 0 ? flux.limitRate(prefetch) : flux;
+    }
+
     /**
      * a method to fire a FNF Request to Remote
      *
@@ -229,13 +480,25 @@ public interface ContextScope extends ContextRoutes {
      * @param args args
      */
     default Mono<Void> routeingFNF(String sign, Object[] args) {
+        return routeingFNF(sign, args, null);
+    }
+
+    /**
+     * a method to fire a FNF Request to Remote with a deadline
+     *
+     * @param sign    handler signature
+     * @param args    args
+     * @param timeout the deadline carried to remote, null for none
+     */
+    default Mono<Void> routeingFNF(String sign, Object[] args, @Nullable Duration timeout) {
+        final long deadline = Timeouts.deadlineOf(timeout);
         final String domain = domainOf(sign);
         final Remote remote = findRemoteService(domain);
         if (null == remote) {
             throw new IllegalStateException("not exists service for " + sign);
         }
         debug("do FNF with {} ,{} =>{}", sign, args, remote);
-        return remote.socket.fireAndForget(Request.build(sign, getName(), args, getTrace().get()));
+        return remote.socket.fireAndForget(Request.build(sign, remote.methodOf(sign), getName(), args, getTrace().get(), deadline));
     }
 
 
@@ -1,13 +1,22 @@
 package cn.zenliu.java.rs.rpc.core;
 
+import cn.zenliu.java.rs.rpc.api.ClientOptions;
 import cn.zenliu.java.rs.rpc.api.Result;
+import cn.zenliu.java.rs.rpc.api.ServiceOptions;
 import org.jetbrains.annotations.Nullable;
+import org.jooq.lambda.tuple.Tuple;
+import org.jooq.lambda.tuple.Tuple2;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.lang.ref.WeakReference;
 import java.util.*;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
+import static cn.zenliu.java.rs.rpc.core.ContextRoutes.deRouteMark;
+import static cn.zenliu.java.rs.rpc.core.ScopeContextImpl.ROUTE_MARK;
+
 /**
  * @author Zen.Liu
  * @apiNote
@@ -16,32 +25,107 @@ import java.util.function.Function;
 interface ContextServices extends Context {
     Map<Class<?>, WeakReference<Object>> getServices();
 
-    Map<Class<?>, WeakReference<Object>> getProxies();
-
-    Map<Integer, Function<Object[], Result<Object>>> getHandlers();
+    /**
+     * client proxies by interface and options
+     */
+    Map<Tuple2<Class<?>, ClientOptions>, WeakReference<Object>> getProxies();
+
+    /**
+     * request response handlers, slot is the handler id. handlers are asynchronous, synchronous ones are adapted.
+     */
+    Registry<Function<Object[], Mono<Result<Object>>>> getHandlers();
+
+    /**
+     * request stream handlers, slot is the handler id
+     */
+    Registry<Function<Object[], Flux<Object>>> getStreamHandlers();
+
+    /**
+     * request channel handlers, slot is the handler id. the handler accepts arguments with the inbound elements
+     */
+    Registry<BiFunction<Object[], Flux<Object>, Flux<Object>>> getChannelHandlers();
+
+    /**
+     * memoized encoded responses of request response handlers, by sign
+     */
+    Map<String, LruCache<LruCache.Key, byte[]>> getMemos();
+
+    /**
+     * @return the memo of handler of the meta, null if not memoized
+     */
+    default @Nullable LruCache<LruCache.Key, byte[]> findMemo(Meta meta) {
+        if (getMemos().isEmpty()) return null;
+        final String sign = signOf(getHandlers(), meta);
+        return sign == null ? null : getMemos().get(sign);
+    }
 
-    Map<Integer, Function<Object[], Flux<Object>>> getStreamHandlers();
+    /**
+     * @param prefix prefix of signs
+     */
+    default void invalidateMemos(String prefix) {
+        getMemos().forEach((sign, memo) -> {
+            if (sign.startsWith(prefix)) memo.clear();
+        });
+    }
 
-    UniqueList getSigns();
+    /**
+     * execution bulkheads of services or methods
+     */
+    Map<String, Bulkhead> getBulkheads();
+
+    /**
+     * @param name    service or method name
+     * @param options execution options
+     * @return null if runs on event loop
+     */
+    default @Nullable Bulkhead prepareBulkhead(String name, ServiceOptions options) {
+        final Bulkhead bulkhead = Bulkhead.of(name, options);
+        if (bulkhead != null) {
+            final Bulkhead old = getBulkheads().put(name, bulkhead);
+            if (old != null) old.dispose();
+        }
+        return bulkhead;
+    }
 
-    default int prepareHandlerSign(String sign) {
-        return getSigns().prepare(sign);
+    /**
+     * @return true if the sign was registered in any handler registry
+     */
+    default boolean hasHandler(String sign) {
+        return getHandlers().contains(sign) || getStreamHandlers().contains(sign) || getChannelHandlers().contains(sign);
     }
 
+    /**
+     * register a synchronous handler, it will be adapted as asynchronous one
+     */
     default void addHandler(String sign, Function<Object[], Result<Object>> handler) {
-        onDebug("before register handler: \nsign: {},\nregistry: {}{} => {}", () -> new Object[]{sign, getSigns(), getHandlers(), getServices()});
-        final int index = prepareHandlerSign(sign);
-        if (index == -1) throw new IllegalStateException("a handler '" + sign + "' already exists! ");
-        getHandlers().put(index, handler);
-        onDebug("after register handler: \nsign: {}\nregistry: {}{} => {}", () -> new Object[]{sign, getSigns(), getHandlers(), getServices()});
+        addAsyncHandler(sign, args -> {
+            final Result<Object> res = handler.apply(args);
+            return Mono.just(res != null ? res : Result.ok(null));
+        });
+    }
+
+    /**
+     * register a asynchronous handler, the handler must not block
+     */
+    default void addAsyncHandler(String sign, Function<Object[], Mono<Result<Object>>> handler) {
+        onDebug("before register handler: \nsign: {},\nregistry: {} => {}", () -> new Object[]{sign, getHandlers(), getServices()});
+        if (hasHandler(sign) || getHandlers().register(sign, handler) == -1)
+            throw new IllegalStateException("a handler '" + sign + "' already exists! ");
+        onDebug("after register handler: \nsign: {}\nregistry: {} => {}", () -> new Object[]{sign, getHandlers(), getServices()});
     }
 
     default void addStreamHandler(String sign, Function<Object[], Flux<Object>> handler) {
-        onDebug("before register handler: \nsign: {},\nregistry: {}{} => {}", () -> new Object[]{sign, getSigns(), getStreamHandlers(), getServices()});
-        final int index = prepareHandlerSign(sign);
-        if (index == -1) throw new IllegalStateException("a handler '" + sign + "' already exists! ");
-        getStreamHandlers().put(index, handler);
-        onDebug("after register handler: \nsign: {}\nregistry: {}{} => {}", () -> new Object[]{sign, getSigns(), getStreamHandlers(), getServices()});
+        onDebug("before register handler: \nsign: {},\nregistry: {} => {}", () -> new Object[]{sign, getStreamHandlers(), getServices()});
+        if (hasHandler(sign) || getStreamHandlers().register(sign, handler) == -1)
+            throw new IllegalStateException("a handler '" + sign + "' already exists! ");
+        onDebug("after register handler: \nsign: {}\nregistry: {} => {}", () -> new Object[]{sign, getStreamHandlers(), getServices()});
+    }
+
+    default void addChannelHandler(String sign, BiFunction<Object[], Flux<Object>, Flux<Object>> handler) {
+        onDebug("before register handler: \nsign: {},\nregistry: {} => {}", () -> new Object[]{sign, getChannelHandlers(), getServices()});
+        if (hasHandler(sign) || getChannelHandlers().register(sign, handler) == -1)
+            throw new IllegalStateException("a handler '" + sign + "' already exists! ");
+        onDebug("after register handler: \nsign: {}\nregistry: {} => {}", () -> new Object[]{sign, getChannelHandlers(), getServices()});
     }
 
     default boolean addService(Class<?> clazz, Object service) {
@@ -58,16 +142,22 @@ interface ContextServices extends Context {
         }
     }
 
-    default Set<String> getServiceName(UniqueList other) {
+    default Set<String> getServiceName(@Nullable Registry<?> other) {
         Set<String> service = new HashSet<>();
         for (Map.Entry<Class<?>, WeakReference<Object>> entry : getServices().entrySet()) {
-            if (entry.getValue().get() != null) {
+            final WeakReference<Object> ref = entry.getValue();
+            if (ref != null && ref.get() != null) {
                 service.add(entry.getKey().getCanonicalName());
             } else {
                 getServices().remove(entry.getKey());
             }
         }
-        if (other != null) other.withRouteMark(service::add, service);
+        if (other != null) {
+            for (String domain : other.keys()) {
+                if (!service.contains(deRouteMark(domain)))
+                    service.add(domain.endsWith(ROUTE_MARK + "") ? domain : (domain + ROUTE_MARK));
+            }
+        }
         return service;
     }
 
@@ -82,24 +172,56 @@ interface ContextServices extends Context {
         return list;
     }
 
-    default Object addProxy(Class<?> type, Object instance) {
-        return getProxies().put(type, new WeakReference<>(instance));
+    default Object addProxy(Class<?> type, ClientOptions options, Object instance) {
+        return getProxies().put(Tuple.tuple(type, options), new WeakReference<>(instance));
     }
 
-    default Object validateProxy(Class<?> type) {
-        final WeakReference<Object> ref = getProxies().get(type);
+    default Object validateProxy(Class<?> type, ClientOptions options) {
+        final WeakReference<Object> ref = getProxies().get(Tuple.tuple(type, options));
         return ref == null ? null : ref.get();
     }
 
-    default @Nullable Function<Object[], Result<Object>> findHandler(String sign) {
-        final int index = getSigns().indexOf(sign);
-        if (index == -1) return null;
-        return getHandlers().get(index);
+    /**
+     * @return sign with handler id, ids are slots in the handler registry of the interaction type
+     */
+    default Map<String, Integer> getSignIds() {
+        final Map<String, Integer> ids = new HashMap<>((getHandlers().size() + getStreamHandlers().size() + getChannelHandlers().size()) * 2);
+        getHandlers().keys().forEach(k -> ids.put(k, getHandlers().indexOf(k)));
+        getStreamHandlers().keys().forEach(k -> ids.put(k, getStreamHandlers().indexOf(k)));
+        getChannelHandlers().keys().forEach(k -> ids.put(k, getChannelHandlers().indexOf(k)));
+        return ids;
+    }
+
+    /**
+     * resolve sign of a request meta (which maybe only with a handler id)
+     *
+     * @param registry the registry of the interaction type
+     */
+    default @Nullable String signOf(Registry<?> registry, Meta meta) {
+        if (meta.sign != null) return meta.sign;
+        return registry.key(meta.method);
+    }
+
+    default @Nullable Function<Object[], Mono<Result<Object>>> findHandler(Meta meta) {
+        if (meta.method >= 0) return getHandlers().get(meta.method);
+        return findHandler(meta.sign);
+    }
+
+    default @Nullable Function<Object[], Flux<Object>> findStreamHandler(Meta meta) {
+        if (meta.method >= 0) return getStreamHandlers().get(meta.method);
+        return findStreamHandler(meta.sign);
+    }
+
+    default @Nullable BiFunction<Object[], Flux<Object>, Flux<Object>> findChannelHandler(Meta meta) {
+        if (meta.method >= 0) return getChannelHandlers().get(meta.method);
+        return getChannelHandlers().find(meta.sign);
+    }
+
+    default @Nullable Function<Object[], Mono<Result<Object>>> findHandler(String sign) {
+        return getHandlers().find(sign);
     }
 
     default @Nullable Function<Object[], Flux<Object>> findStreamHandler(String sign) {
-        final int index = getSigns().indexOf(sign);
-        if (index == -1) return null;
-        return getStreamHandlers().get(index);
+        return getStreamHandlers().find(sign);
     }
 }
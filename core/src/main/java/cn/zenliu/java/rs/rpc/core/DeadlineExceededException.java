@@ -0,0 +1,16 @@
+package cn.zenliu.java.rs.rpc.core;
+
+/**
+ * the deadline of a request is passed before it's processed
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-30
+ */
+public class DeadlineExceededException extends RuntimeException {
+    private static final long serialVersionUID = 2926519484436592380L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,142 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import cn.zenliu.java.rs.rpc.api.Config;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.jetbrains.annotations.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.FutureMono;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Named event loops of servers and clients. Loops of the same name are shared in the JVM, different names are isolated.<br>
+ * Servers accept on selector loops when configured, otherwise on the worker loops. Clients are colocated on the worker loops.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-02-01
+ */
+public final class EventLoops implements LoopResources {
+    static final Map<String, EventLoops> LOOPS = new ConcurrentHashMap<>();
+    final String name;
+    final int workers;
+    final int selectors;
+    final boolean daemon;
+    final @Nullable ThreadFactory threadFactory;
+    /**
+     * groups by native or not
+     */
+    final Map<Boolean, EventLoopGroup> workerGroups = new ConcurrentHashMap<>(2);
+    final Map<Boolean, EventLoopGroup> selectorGroups = new ConcurrentHashMap<>(2);
+    final Map<Boolean, EventLoopGroup> clientGroups = new ConcurrentHashMap<>(2);
+    final AtomicBoolean disposed = new AtomicBoolean();
+
+    EventLoops(Config.LoopSetting setting) {
+        this.name = Objects.requireNonNull(setting.getName(), "loops must have a name");
+        this.workers = setting.getWorkers() == null ? DEFAULT_IO_WORKER_COUNT : Math.max(setting.getWorkers(), 1);
+        this.selectors = setting.getSelectors() == null ? 0 : Math.max(setting.getSelectors(), 0);
+        this.daemon = setting.isDaemon();
+        this.threadFactory = setting.getThreadFactory();
+    }
+
+    /**
+     * @return the loops of the setting name, created by the first setting of that name
+     */
+    public static EventLoops of(Config.LoopSetting setting) {
+        return LOOPS.compute(setting.getName(), (k, v) -> v == null || v.isDisposed() ? new EventLoops(setting) : v);
+    }
+
+    public static Map<String, EventLoops> getLoops() {
+        return Collections.unmodifiableMap(LOOPS);
+    }
+
+    private EventLoopGroup newGroup(int count, String kind, boolean useNative) {
+        final ThreadFactory factory = threadFactory != null ? threadFactory : new DefaultThreadFactory(name + "-" + kind, daemon);
+        return useNative && Epoll.isAvailable() ? new EpollEventLoopGroup(count, factory) : new NioEventLoopGroup(count, factory);
+    }
+
+    @Override
+    public EventLoopGroup onServer(boolean useNative) {
+        return workerGroups.computeIfAbsent(useNative, n -> newGroup(workers, "io", n));
+    }
+
+    @Override
+    public EventLoopGroup onServerSelect(boolean useNative) {
+        if (selectors == 0) return onServer(useNative);
+        return selectorGroups.computeIfAbsent(useNative, n -> newGroup(selectors, "select", n));
+    }
+
+    @Override
+    public EventLoopGroup onClient(boolean useNative) {
+        return clientGroups.computeIfAbsent(useNative, n -> LoopResources.colocate(onServer(n)));
+    }
+
+    @Override
+    public boolean daemon() {
+        return daemon;
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed.get();
+    }
+
+    @Override
+    public Mono<Void> disposeLater(Duration quietPeriod, Duration timeout) {
+        return Mono.defer(() -> {
+            if (!disposed.compareAndSet(false, true)) return Mono.empty();
+            LOOPS.remove(name, this);
+            final List<EventLoopGroup> groups = new ArrayList<>(selectorGroups.values());
+            groups.addAll(workerGroups.values());
+            return Flux.fromIterable(groups)
+                .flatMap(g -> shutdown(g, quietPeriod, timeout))
+                .then();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Mono<Void> shutdown(EventLoopGroup group, Duration quietPeriod, Duration timeout) {
+        return FutureMono.from((Future<Void>) group.shutdownGracefully(quietPeriod.toMillis(), timeout.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * @return pending tasks of each loop, -1 for unknown
+     */
+    static List<Integer> pendingTasks(EventLoopGroup group) {
+        final List<Integer> pending = new ArrayList<>();
+        for (EventExecutor e : group) {
+            pending.add(e instanceof SingleThreadEventExecutor ? ((SingleThreadEventExecutor) e).pendingTasks() : -1);
+        }
+        return pending;
+    }
+
+    public Map<String, Object> dump() {
+        final Map<String, Object> map = new HashMap<>();
+        map.put("workers", workers);
+        map.put("selectors", selectors);
+        map.put("daemon", daemon);
+        map.put("disposed", disposed.get());
+        workerGroups.forEach((n, g) -> map.put(n ? "nativeWorkerPending" : "workerPending", pendingTasks(g)));
+        selectorGroups.forEach((n, g) -> map.put(n ? "nativeSelectorPending" : "selectorPending", pendingTasks(g)));
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "LOOPS@" + name + dump();
+    }
+}
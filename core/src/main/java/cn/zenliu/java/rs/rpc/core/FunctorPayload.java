@@ -1,10 +1,11 @@
 package cn.zenliu.java.rs.rpc.core;
 
-import io.netty.buffer.ByteBufUtil;
 import io.rsocket.Payload;
 import org.jetbrains.annotations.NotNull;
+import org.jooq.lambda.function.Function3;
 import org.jooq.lambda.tuple.Tuple;
 import org.jooq.lambda.tuple.Tuple2;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -20,7 +21,7 @@ public interface FunctorPayload {
 
     static Meta maybeMeta(Payload p) {
         if (p.hasMetadata()) {
-            return Proto.from(ByteBufUtil.getBytes(p.sliceMetadata()), Meta.class);
+            return Meta.decode(p.sliceMetadata());
         }
         return null;
     }
@@ -28,7 +29,7 @@ public interface FunctorPayload {
     static ServMeta maybeServMeta(Payload p) {
         if (p.hasMetadata()) {
             try {
-                return Proto.from(ByteBufUtil.getBytes(p.sliceMetadata()), ServMeta.class);
+                return Proto.from(p.sliceMetadata(), ServMeta.class);
             } catch (Exception e) {
                 return null;
             }
@@ -37,12 +38,12 @@ public interface FunctorPayload {
     }
 
     static Tuple2<Meta, Payload> justMeta(Payload p) {
-        return Tuple.tuple(Proto.from(ByteBufUtil.getBytes(p.sliceMetadata()), Meta.class), p);
+        return Tuple.tuple(Meta.decode(p.sliceMetadata()), p);
     }
 
     static Request mustRequest(Payload p) {
         try {
-            return Proto.from(ByteBufUtil.getBytes(p.data()), Request.class);
+            return Proto.from(p.data(), Request.class);
         } finally {
             p.release();
         }
@@ -50,25 +51,29 @@ public interface FunctorPayload {
 
     static Response mustResponse(Payload p) {
         try {
-            return Proto.from(ByteBufUtil.getBytes(p.data()), Response.class);
+            return Proto.from(p.data(), Response.class);
         } finally {
             p.release();
         }
     }
 
     static Mono<Void> metaPushHandler(Payload p, Remote r, Consumer<Tuple2<ServMeta, Remote>> servMetaHandler) {
-        return Mono.just(p)
-            .map(FunctorPayload::maybeServMeta)//todo
-            .flatMap(x -> {
-                servMetaHandler.accept(Tuple.tuple(x, r));
-                return Mono.empty();
-            });
+        return Mono.fromRunnable(() -> {
+            final ServMeta servMeta;
+            try {
+                servMeta = maybeServMeta(p);
+            } finally {
+                p.release();
+            }
+            if (servMeta != null) servMetaHandler.accept(Tuple.tuple(servMeta, r));
+        });
     }
 
     static Mono<Void> fnfHandler(Payload p, Remote r, Consumer<Tuple2<@NotNull ServMeta, @NotNull Remote>> servMetaHandler, BiFunction<Tuple2<Meta, Payload>, Remote, Mono<Void>> fnfHandler) {
         if (p.data().capacity() == 0) { // a meta push must without data
             final ServMeta servMeta = maybeServMeta(p);
             if (servMeta != null) {
+                p.release();
                 servMetaHandler.accept(Tuple.tuple(servMeta, r));
                 return Mono.empty();
             }
@@ -87,4 +92,13 @@ public interface FunctorPayload {
     static Flux<Payload> rsHandler(Payload p, Remote r, BiFunction<Tuple2<Meta, Payload>, Remote, Flux<Payload>> rsHandler) {
         return rsHandler.apply(justMeta(p), r);
     }
+
+    /**
+     * the first payload of a channel is the request, the rest are elements
+     */
+    static Flux<Payload> rcHandler(Publisher<Payload> payloads, Remote r, Function3<Tuple2<Meta, Payload>, Flux<Payload>, Remote, Flux<Payload>> rcHandler) {
+        return Flux.from(payloads).switchOnFirst((s, f) -> s.hasValue() ?
+            rcHandler.apply(justMeta(s.get()), f.skip(1), r) :
+            f.thenMany(Flux.empty()));
+    }
 }
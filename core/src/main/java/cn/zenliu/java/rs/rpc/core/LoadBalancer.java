@@ -0,0 +1,106 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Strategy to choose a Remote from the Remotes serving a domain.<br>
+ * Can be set per scope or per domain, see {@link ScopeImpl#setLoadBalancer(LoadBalancer)}.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-24
+ */
+@FunctionalInterface
+public interface LoadBalancer {
+    /**
+     * @param group   the group of domain
+     * @param remotes snapshot of group members, at least two
+     * @return the chosen one
+     */
+    Remote select(RemoteGroup group, Remote[] remotes);
+
+    static LoadBalancer roundRobin() {
+        return RoundRobin.INSTANCE;
+    }
+
+    /**
+     * random by {@link Remote#getWeight()}, remotes with non positive weight are skipped unless all are
+     */
+    static LoadBalancer weightedRandom() {
+        return WeightedRandom.INSTANCE;
+    }
+
+    /**
+     * least in-flight requests, ties are rotated
+     */
+    static LoadBalancer leastOutstanding() {
+        return LeastOutstanding.INSTANCE;
+    }
+
+    /**
+     * power of two choices over {@link RemoteStats#cost()}: latency EWMA weighted by in-flight requests
+     */
+    static LoadBalancer powerOfTwo() {
+        return PowerOfTwo.INSTANCE;
+    }
+
+    final class RoundRobin implements LoadBalancer {
+        static final RoundRobin INSTANCE = new RoundRobin();
+
+        @Override
+        public Remote select(RemoteGroup group, Remote[] remotes) {
+            return remotes[group.next() % remotes.length];
+        }
+    }
+
+    final class WeightedRandom implements LoadBalancer {
+        static final WeightedRandom INSTANCE = new WeightedRandom();
+
+        @Override
+        public Remote select(RemoteGroup group, Remote[] remotes) {
+            long total = 0;
+            for (Remote r : remotes) total += Math.max(r.weight, 0);
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (total == 0) return remotes[random.nextInt(remotes.length)];
+            long point = random.nextLong(total);
+            for (Remote r : remotes) {
+                point -= Math.max(r.weight, 0);
+                if (point < 0) return r;
+            }
+            return remotes[remotes.length - 1];
+        }
+    }
+
+    final class LeastOutstanding implements LoadBalancer {
+        static final LeastOutstanding INSTANCE = new LeastOutstanding();
+
+        @Override
+        public Remote select(RemoteGroup group, Remote[] remotes) {
+            final int start = group.next();
+            Remote best = null;
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < remotes.length; i++) {
+                final Remote r = remotes[(start + i) % remotes.length];
+                final int inflight = r.stats.getInflight();
+                if (inflight < min) {
+                    min = inflight;
+                    best = r;
+                }
+            }
+            return best;
+        }
+    }
+
+    final class PowerOfTwo implements LoadBalancer {
+        static final PowerOfTwo INSTANCE = new PowerOfTwo();
+
+        @Override
+        public Remote select(RemoteGroup group, Remote[] remotes) {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final int a = random.nextInt(remotes.length);
+            int b = random.nextInt(remotes.length - 1);
+            if (b >= a) b++;
+            return remotes[a].stats.cost() <= remotes[b].stats.cost() ? remotes[a] : remotes[b];
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache with segmented LRU eviction and time to live.<br>
+ * Keys are striped over segments, each segment is locked on its own. A new entry enters the probation part of a segment,
+ * a hit promotes it to the protected part (80% of a segment), so one shot keys are evicted before frequently used ones.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-31
+ */
+public final class LruCache<K, V> {
+    final int maxEntries;
+    final long ttl;
+    final Segment<K, V>[] segments;
+    final LongAdder hits = new LongAdder();
+    final LongAdder misses = new LongAdder();
+    final LongAdder evictions = new LongAdder();
+    final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param maxEntries max entries of cache
+     * @param ttl        time to live since put, null or non positive for never expire
+     */
+    @SuppressWarnings("unchecked")
+    public LruCache(int maxEntries, @Nullable Duration ttl) {
+        this.maxEntries = Math.max(maxEntries, 1);
+        this.ttl = ttl == null || ttl.isNegative() ? 0 : ttl.toNanos();
+        int count = 1;
+        while (count < 16 && count * 32 <= this.maxEntries) count <<= 1;
+        segments = new Segment[count];
+        final int capacity = (this.maxEntries + count - 1) / count;
+        for (int i = 0; i < count; i++) segments[i] = new Segment<>(capacity);
+    }
+
+    /**
+     * bytes as key, such as encoded arguments
+     */
+    public static final class Key {
+        final byte[] bytes;
+        final int hash;
+
+        public Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Key && hash == ((Key) o).hash && Arrays.equals(bytes, ((Key) o).bytes);
+        }
+    }
+
+    static final class Entry<V> {
+        final V value;
+        final long expire;
+        boolean protect;
+
+        Entry(V value, long expire) {
+            this.value = value;
+            this.expire = expire;
+        }
+    }
+
+    static final class Segment<K, V> {
+        final int protectedCapacity;
+        final int probationCapacity;
+        final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+        final LinkedHashMap<K, Entry<V>> protect = new LinkedHashMap<>(16, 0.75f, true);
+
+        Segment(int capacity) {
+            this.protectedCapacity = capacity * 4 / 5;
+            this.probationCapacity = Math.max(capacity - protectedCapacity, 1);
+        }
+
+        int size() {
+            return probation.size() + protect.size();
+        }
+    }
+
+    private Segment<K, V> segmentOf(Object key) {
+        final int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    public @Nullable V get(K key) {
+        final Segment<K, V> s = segmentOf(key);
+        synchronized (s) {
+            Entry<V> e = s.protect.get(key);
+            if (e == null) {
+                e = s.probation.get(key);
+                if (e == null) {
+                    misses.increment();
+                    return null;
+                }
+            }
+            if (e.expire != 0 && e.expire - System.nanoTime() < 0) {
+                (e.protect ? s.protect : s.probation).remove(key);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            if (!e.protect) promote(s, key, e);
+            hits.increment();
+            return e.value;
+        }
+    }
+
+    public void put(K key, V value) {
+        final Entry<V> e = new Entry<>(value, ttl == 0 ? 0 : System.nanoTime() + ttl);
+        final Segment<K, V> s = segmentOf(key);
+        synchronized (s) {
+            final Entry<V> old = s.protect.remove(key);
+            if (old != null) {
+                e.protect = true;
+                s.protect.put(key, e);
+                return;
+            }
+            s.probation.put(key, e);
+            evict(s);
+        }
+    }
+
+    private void promote(Segment<K, V> s, K key, Entry<V> e) {
+        if (s.protectedCapacity == 0) return;
+        s.probation.remove(key);
+        e.protect = true;
+        s.protect.put(key, e);
+        if (s.protect.size() > s.protectedCapacity) {
+            //demote the least recently used protected one
+            final Iterator<Map.Entry<K, Entry<V>>> it = s.protect.entrySet().iterator();
+            final Map.Entry<K, Entry<V>> lru = it.next();
+            it.remove();
+            lru.getValue().protect = false;
+            s.probation.put(lru.getKey(), lru.getValue());
+            evict(s);
+        }
+    }
+
+    private void evict(Segment<K, V> s) {
+        final Iterator<Map.Entry<K, Entry<V>>> it = s.probation.entrySet().iterator();
+        while (s.probation.size() > s.probationCapacity && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    public boolean invalidate(K key) {
+        final Segment<K, V> s = segmentOf(key);
+        synchronized (s) {
+            return s.probation.remove(key) != null || s.protect.remove(key) != null;
+        }
+    }
+
+    /**
+     * @return count of removed entries
+     */
+    public int invalidateIf(Predicate<K> predicate) {
+        int count = 0;
+        for (Segment<K, V> s : segments) {
+            synchronized (s) {
+                count += removeIf(s.probation, predicate) + removeIf(s.protect, predicate);
+            }
+        }
+        return count;
+    }
+
+    private static <K, V> int removeIf(Map<K, V> map, Predicate<K> predicate) {
+        int count = 0;
+        final Iterator<K> it = map.keySet().iterator();
+        while (it.hasNext()) {
+            if (predicate.test(it.next())) {
+                it.remove();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void clear() {
+        for (Segment<K, V> s : segments) {
+            synchronized (s) {
+                s.probation.clear();
+                s.protect.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> s : segments) {
+            synchronized (s) {
+                size += s.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public Map<String, Object> dump() {
+        final Map<String, Object> map = new HashMap<>();
+        map.put("maxEntries", maxEntries);
+        map.put("ttl", Duration.ofNanos(ttl));
+        map.put("size", size());
+        map.put("hits", hits.sum());
+        map.put("misses", misses.sum());
+        map.put("evictions", evictions.sum());
+        map.put("expirations", expirations.sum());
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "LRU" + dump();
+    }
+}
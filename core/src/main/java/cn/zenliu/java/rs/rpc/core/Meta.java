@@ -1,45 +1,211 @@
 package cn.zenliu.java.rs.rpc.core;
 
 import cn.zenliu.java.rs.rpc.api.Tick;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
 import lombok.Builder;
 import lombok.Getter;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
+ * Request Meta, transmit as a fixed layout binary header:
+ * <pre>
+ * | version:1 | flags:1 | [method:4] | [sign: len:2 utf8] | id: 16 | tick: 8 | [budget: 8] | [from: len:2 utf8] | [link: count:2 (tick:8 len:2 utf8)*] |
+ * </pre>
+ * optional sections presence are marked in flags.
+ * <p>
+ * decoding reads the header eagerly from the buffer without copying it first: a Meta is mutable (see {@link #addTrace})
+ * and outlives the inbound frame, which is released once dispatched, so a lazy view over the buffer would need to
+ * retain the frame for the whole call.
+ *
  * @author Zen.Liu
  * @apiNote
  * @since 2021-01-18
  */
-@Builder
+@Builder(toBuilder = true)
 @Getter
 public class Meta {
+    static final byte VERSION = 1;
+    static final int FLAG_TRACE = 1;
+    static final int FLAG_SIGN = 1 << 1;
+    static final int FLAG_FROM = 1 << 2;
+    static final int FLAG_LINK = 1 << 3;
+    static final int FLAG_METHOD = 1 << 4;
+    static final int FLAG_DEADLINE = 1 << 5;
+    static final long NO_DEADLINE = Long.MIN_VALUE;
     /**
-     * domain: ServiceClassCanonicalName#Method<MethodArgumentCount>
+     * domain: ServiceClassCanonicalName#Method<MethodArgumentCount>, may absent when method is present
      */
     final String sign;
+    /**
+     * handler id negotiated with target remote via {@link ServMeta#signs}, -1 for none
+     */
+    @Builder.Default final int method = -1;
 
     final String from;
     @Builder.Default final long tick = Tick.fromNowUTC();
     @Builder.Default final boolean trace = false;
-    @Builder.Default final String uuid = UUID.randomUUID().toString();
     /**
-     * trace information: (timestamp,nodeScopeName)
+     * 128 bit request id
+     */
+    @Builder.Default final long idHigh = ThreadLocalRandom.current().nextLong();
+    @Builder.Default final long idLow = ThreadLocalRandom.current().nextLong();
+    /**
+     * deadline in local {@link System#nanoTime()}, transmit as remaining budget in nanos so no clock sync is needed
+     */
+    @Builder.Default final long deadline = NO_DEADLINE;
+    /**
+     * trace information: (timestamp,nodeScopeName), created on first trace
      */
-    @Builder.Default final Map<Long, String> link = new HashMap<>();
+    @Nullable Map<Long, String> link;
 
     public Meta addTrace(@NotNull String scope) {
+        if (link == null) link = new LinkedHashMap<>();
         link.put(Tick.fromNowUTC(), scope);
         return this;
     }
 
+    /**
+     * target this meta to next remote: use id if remote advertised one for the sign
+     *
+     * @param sign   the resolved sign
+     * @param remote the next remote
+     * @return this or a retargeted Meta
+     */
+    public Meta routeTo(String sign, Remote remote) {
+        final int id = remote.methodOf(sign);
+        if (id == method && (id >= 0 || sign.equals(this.sign))) return this;
+        return id >= 0 ? toBuilder().method(id).sign(null).build() : toBuilder().method(-1).sign(sign).build();
+    }
+
+    public boolean hasDeadline() {
+        return deadline != NO_DEADLINE;
+    }
+
+    /**
+     * @return remaining nanos before deadline, {@link Long#MAX_VALUE} for no deadline
+     */
+    public long remaining() {
+        return deadline == NO_DEADLINE ? Long.MAX_VALUE : deadline - System.nanoTime();
+    }
+
+    public boolean isExpired() {
+        return deadline != NO_DEADLINE && deadline - System.nanoTime() <= 0;
+    }
+
+    public String getUuid() {
+        return new UUID(idHigh, idLow).toString();
+    }
+
+    /**
+     * encode as header into a pooled buffer
+     */
+    public ByteBuf encode() {
+        return encode(ByteBufAllocator.DEFAULT);
+    }
+
+    public ByteBuf encode(ByteBufAllocator allocator) {
+        final ByteBuf buf = allocator.ioBuffer();
+        try {
+            return encode(buf);
+        } catch (Throwable e) {
+            buf.release();
+            throw e;
+        }
+    }
+
+    ByteBuf encode(ByteBuf buf) {
+        int flags = 0;
+        if (trace) flags |= FLAG_TRACE;
+        if (sign != null) flags |= FLAG_SIGN;
+        if (method >= 0) flags |= FLAG_METHOD;
+        if (from != null) flags |= FLAG_FROM;
+        if (link != null && !link.isEmpty()) flags |= FLAG_LINK;
+        if (deadline != NO_DEADLINE) flags |= FLAG_DEADLINE;
+        buf.writeByte(VERSION).writeByte(flags);
+        if (method >= 0) buf.writeInt(method);
+        if (sign != null) writeString(buf, sign);
+        buf.writeLong(idHigh).writeLong(idLow).writeLong(tick);
+        //remaining at time of sending: hop time of router is subtracted
+        if (deadline != NO_DEADLINE) buf.writeLong(Math.max(deadline - System.nanoTime(), 0));
+        if (from != null) writeString(buf, from);
+        if ((flags & FLAG_LINK) != 0) {
+            buf.writeShort(link.size());
+            link.forEach((k, v) -> writeString(buf.writeLong(k), v));
+        }
+        return buf;
+    }
+
+    /**
+     * parse header in place: reader index of source is not changed
+     *
+     * @param buf the metadata
+     * @return Meta
+     */
+    public static Meta decode(ByteBuf buf) {
+        int i = buf.readerIndex();
+        final byte version = buf.getByte(i++);
+        if (version != VERSION) throw new IllegalStateException("unsupported meta version " + version);
+        final int flags = buf.getUnsignedByte(i++);
+        final MetaBuilder builder = Meta.builder().trace((flags & FLAG_TRACE) != 0);
+        if ((flags & FLAG_METHOD) != 0) {
+            builder.method(buf.getInt(i));
+            i += 4;
+        }
+        if ((flags & FLAG_SIGN) != 0) {
+            final int len = buf.getUnsignedShort(i);
+            builder.sign(buf.toString(i + 2, len, StandardCharsets.UTF_8));
+            i += 2 + len;
+        }
+        builder.idHigh(buf.getLong(i)).idLow(buf.getLong(i + 8)).tick(buf.getLong(i + 16));
+        i += 24;
+        if ((flags & FLAG_DEADLINE) != 0) {
+            builder.deadline(System.nanoTime() + buf.getLong(i));
+            i += 8;
+        }
+        if ((flags & FLAG_FROM) != 0) {
+            final int len = buf.getUnsignedShort(i);
+            builder.from(buf.toString(i + 2, len, StandardCharsets.UTF_8));
+            i += 2 + len;
+        }
+        if ((flags & FLAG_LINK) != 0) {
+            final int count = buf.getUnsignedShort(i);
+            i += 2;
+            final Map<Long, String> link = new LinkedHashMap<>(count);
+            for (int n = 0; n < count; n++) {
+                final long tick = buf.getLong(i);
+                final int len = buf.getUnsignedShort(i + 8);
+                link.put(tick, buf.toString(i + 10, len, StandardCharsets.UTF_8));
+                i += 10 + len;
+            }
+            builder.link(link);
+        }
+        return builder.build();
+    }
+
+    static void writeString(ByteBuf buf, String value) {
+        final int len = ByteBufUtil.utf8Bytes(value);
+        if (len > 0xFFFF)
+            throw new IllegalArgumentException("meta string too long: " + len + " bytes, max 65535");
+        final int idx = buf.writerIndex();
+        buf.writeShort(0);
+        buf.setShort(idx, ByteBufUtil.writeUtf8(buf, value));
+    }
+
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
-        builder.append("META@").append(sign).append('@').append(uuid).append("{").append(from).append('@').append(Tick.from(tick).getKey()).append(":T:").append(trace).append('}');
+        builder.append("META@").append(sign != null ? sign : ("#" + method)).append('@').append(getUuid()).append("{").append(from).append('@').append(Tick.from(tick).getKey()).append(":T:").append(trace);
+        if (deadline != NO_DEADLINE) builder.append(":B:").append(remaining() / 1000).append("μs");
+        builder.append('}');
         if (link != null && !link.isEmpty()) {
             link.forEach((k, v) -> {
                 builder.append('[').append(Tick.from(k).getKey()).append(':').append(v).append(']').append(">");
@@ -1,7 +1,12 @@
 package cn.zenliu.java.rs.rpc.core;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
+import io.protostuff.ByteBufferInput;
 import io.protostuff.LinkedBuffer;
 import io.protostuff.ProtostuffIOUtil;
 import io.protostuff.Schema;
@@ -9,6 +14,8 @@ import io.protostuff.runtime.DefaultIdStrategy;
 import io.protostuff.runtime.Delegate;
 import io.protostuff.runtime.IdStrategy;
 import io.protostuff.runtime.RuntimeSchema;
+import io.rsocket.Payload;
+import io.rsocket.util.ByteBufPayload;
 import mimic.Delegator;
 import mimic.Mimic;
 import mimic.Proxy;
@@ -16,10 +23,12 @@ import org.jooq.lambda.Sneaky;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 import static cn.zenliu.java.rs.rpc.core.Proto.internal.STRATEGY;
@@ -68,17 +77,7 @@ public interface Proto {
 
     static byte[] to(Object o) {
         //  synchronized (internal.buffer) {
-        Object instance;
-        try {
-            Field h = o.getClass().getSuperclass().getDeclaredField("h");
-            h.setAccessible(true);
-            instance = h.get(o);
-        } catch (Exception ex) {
-            if (log.isDebugEnabled()) {
-                log.error("error to de proxy of {} ", o, ex);
-            }
-            instance = o;
-        }
+        final Object instance = internal.deProxy(o);
         final Schema<Object> schema = internal.schemaFrom.apply(instance);
         if (schema == null) throw new IllegalStateException("not found schema for type: " + o.getClass());
         try {
@@ -89,33 +88,90 @@ public interface Proto {
         // }
     }
 
+    /**
+     * encode into a pooled {@link ByteBuf} from {@link ByteBufAllocator#DEFAULT}
+     *
+     * @param o the object
+     * @return a buffer owned by caller (should be released or handed to a Payload)
+     */
+    static ByteBuf toBuf(Object o) {
+        return toBuf(o, ByteBufAllocator.DEFAULT);
+    }
 
-    @SuppressWarnings({"unchecked", "rawtypes"})
-    static <T> T from(byte[] data, Class<T> clz) {
-        Schema<Object> schema;
-        if (clz.isInterface()) {
-            schema = internal.getSchema(Mimic.class);
-        } else {
-            schema = internal.getSchema(clz);
+    /**
+     * encode into a buffer from allocator, without intermediate byte array.
+     *
+     * @param o         the object
+     * @param allocator allocator to use
+     * @return a buffer owned by caller (should be released or handed to a Payload)
+     */
+    static ByteBuf toBuf(Object o, ByteBufAllocator allocator) {
+        final Object instance = internal.deProxy(o);
+        final Schema<Object> schema = internal.schemaFrom.apply(instance);
+        if (schema == null) throw new IllegalStateException("not found schema for type: " + o.getClass());
+        final ByteBuf buf = allocator.ioBuffer();
+        final LinkedBuffer buffer = internal.buffer.get();
+        try {
+            ProtostuffIOUtil.writeTo(new ByteBufOutputStream(buf), instance, schema, buffer);
+            return buf;
+        } catch (Throwable e) {
+            buf.release();
+            throw new IllegalStateException("error to encode message of " + schema.typeClass(), e);
+        } finally {
+            buffer.clear();
         }
-        if (schema == null) throw new IllegalStateException("not found schema for type: " + clz);
-        Object o = null;
+    }
+
+
+    /**
+     * build a payload of data and metadata, the data buffer is released if metadata fails to encode
+     *
+     * @param data     data buffer, owned by the payload
+     * @param metadata encoder of metadata buffer
+     * @return the payload
+     */
+    static Payload toPayload(ByteBuf data, Supplier<ByteBuf> metadata) {
         try {
-            o = schema.newMessage();
-            ProtostuffIOUtil.mergeFrom(data, o, schema);
-        } catch (Exception e) {
-            if (log.isDebugEnabled()) {
-                log.error("error to decode message of {} \n{}", schema.typeClass(), ByteBufUtil.prettyHexDump(Unpooled.copiedBuffer(data)), e);
-            }
-            schema = internal.getSchema(Proxy.class);
-            if (schema == null) throw new IllegalStateException("not found schema for type: " + clz);
-            o = schema.newMessage();
-            ProtostuffIOUtil.mergeFrom(data, o, schema);
+            return ByteBufPayload.create(data, metadata.get());
+        } catch (Throwable e) {
+            data.release();
+            throw e;
         }
-        if (o instanceof Delegator) {
-            return (T) ((Delegator) o).disguise();
+    }
+
+    static <T> T from(byte[] data, Class<T> clz) {
+        return internal.decode(clz, (o, schema) -> ProtostuffIOUtil.mergeFrom(data, o, schema), () -> Unpooled.wrappedBuffer(data));
+    }
+
+    /**
+     * decode from the remaining bytes of a ByteBuffer (position of source is not changed)
+     */
+    static <T> T from(ByteBuffer data, Class<T> clz) {
+        return internal.decode(clz, (o, schema) -> internal.mergeFrom(new ByteBufferInput(data.slice(), true), o, schema), () -> Unpooled.wrappedBuffer(data.slice()));
+    }
+
+    /**
+     * decode from readable bytes of a ByteBuf in place (reader index is not changed, and the buffer is not released)
+     */
+    static <T> T from(ByteBuf data, Class<T> clz) {
+        if (data.hasArray()) {
+            final byte[] array = data.array();
+            final int offset = data.arrayOffset() + data.readerIndex();
+            final int length = data.readableBytes();
+            return internal.decode(clz, (o, schema) -> ProtostuffIOUtil.mergeFrom(array, offset, length, o, schema), () -> data);
+        } else if (data.nioBufferCount() == 1) {
+            final ByteBuffer buffer = data.nioBuffer();
+            return internal.decode(clz, (o, schema) -> internal.mergeFrom(new ByteBufferInput(buffer.slice(), true), o, schema), () -> data);
         }
-        return (T) o;
+        //composite buffer ( eg: reassembled fragments)
+        return internal.decode(clz, (o, schema) -> {
+            final LinkedBuffer buffer = internal.buffer.get();
+            try {
+                ProtostuffIOUtil.mergeFrom(new ByteBufInputStream(data.duplicate()), o, schema, buffer);
+            } finally {
+                buffer.clear();
+            }
+        }, () -> data);
     }
 
 
@@ -148,6 +204,16 @@ public interface Proto {
             return schema;
         }
 
+        /**
+         * unwrap the InvocationHandler of a JDK proxy (eg: a Mimic delegate), else the object self
+         */
+        static Object deProxy(Object o) {
+            if (java.lang.reflect.Proxy.isProxyClass(o.getClass())) {
+                return java.lang.reflect.Proxy.getInvocationHandler(o);
+            }
+            return o;
+        }
+
         static Schema<Object> getSchema(String clz) {
             Schema<Object> schema = schemaPool.get(clz);
             if (schema == null) {
@@ -161,6 +227,48 @@ public interface Proto {
             return schema;
         }
 
+        @FunctionalInterface
+        interface Merger {
+            void merge(Object message, Schema<Object> schema) throws IOException;
+        }
+
+        static void mergeFrom(ByteBufferInput input, Object message, Schema<Object> schema) throws IOException {
+            schema.mergeFrom(input, message);
+            input.checkLastTagWas(0);
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> T decode(Class<T> clz, Merger merger, Supplier<ByteBuf> dump) {
+            Schema<Object> schema;
+            if (clz.isInterface()) {
+                schema = getSchema(Mimic.class);
+            } else {
+                schema = getSchema(clz);
+            }
+            if (schema == null) throw new IllegalStateException("not found schema for type: " + clz);
+            Object o;
+            try {
+                o = schema.newMessage();
+                merger.merge(o, schema);
+            } catch (Exception e) {
+                if (log.isDebugEnabled()) {
+                    log.error("error to decode message of {} \n{}", schema.typeClass(), ByteBufUtil.prettyHexDump(dump.get()), e);
+                }
+                schema = getSchema(Proxy.class);
+                if (schema == null) throw new IllegalStateException("not found schema for type: " + clz);
+                o = schema.newMessage();
+                try {
+                    merger.merge(o, schema);
+                } catch (IOException ex) {
+                    throw new IllegalStateException("error to decode message of " + clz, ex);
+                }
+            }
+            if (o instanceof Delegator) {
+                return (T) ((Delegator) o).disguise();
+            }
+            return (T) o;
+        }
+
         static Class<?> classFromString(String name) throws ClassNotFoundException {
             //@formatter:off
             if (long.class.getCanonicalName().equals(name)) {return long.class;}
@@ -1,17 +1,36 @@
 package cn.zenliu.java.rs.rpc.core;
 
+import cn.zenliu.java.rs.rpc.api.Batched;
+import cn.zenliu.java.rs.rpc.api.Cached;
+import cn.zenliu.java.rs.rpc.api.ClientOptions;
 import cn.zenliu.java.rs.rpc.api.Result;
+import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.api.ServiceOptions;
 import lombok.SneakyThrows;
+import mimic.MimicUtil;
 import org.jetbrains.annotations.Nullable;
 import org.jooq.lambda.Seq;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 
@@ -25,6 +44,18 @@ interface ProxyUtil {
             Seq.of(method.getParameterTypes()).map(Class::getSimpleName).toString(PARAMETER_SPLITTER + "");
     }
 
+    /**
+     * method part of the batch handler sign, which is not a valid java method name
+     */
+    String BATCH_METHOD = "<batch>";
+
+    /**
+     * @return sign of the batch handler of a service domain
+     */
+    static String batchSign(String domain) {
+        return domain + DOMAIN_SPLITTER + BATCH_METHOD;
+    }
+
     static String domainOf(String sign) {
         return sign.substring(0, sign.indexOf(ProxyUtil.DOMAIN_SPLITTER));
     }
@@ -34,112 +65,397 @@ interface ProxyUtil {
     static ClientCreator clientCreatorBuilder(
         ContextScope ctx
     ) {
-        return (clientKlass, argumentProcessor, useFNF) -> {
-            Object instance = ctx.validateProxy(clientKlass);
+        return (clientKlass, argumentProcessor, useFNF, clientOptions) -> {
+            final ClientOptions options = clientOptions == null ? ClientOptions.DEFAULT : clientOptions;
+            Object instance = ctx.validateProxy(clientKlass, options);
             if (instance != null) return instance;
-            final String canonicalName = clientKlass.getCanonicalName();
-            final Map<String, Function<Object[], Object>> cache = new ConcurrentHashMap<>();
+            final String proxyName = clientKlass.getCanonicalName() + "$Proxy$" + ctx.getName();
+            //bind each method to its sign, processor and call mode before any call
+            final Map<Method, Function<Object[], Object>> handles = new HashMap<>();
+            for (Method m : clientKlass.getMethods()) {
+                if (Modifier.isStatic(m.getModifiers())) continue;
+                final Function<Object[], Object[]> processor = argumentProcessor == null ? null : argumentProcessor.get(m.getName());
+                final Batched batched = m.getAnnotation(Batched.class);
+                handles.put(m, batched != null
+                    ? batchedHandle(ctx, clientKlass, m, batched, processor, options.timeoutOf(batched.value()))
+                    : clientHandle(ctx, m, signature(m, clientKlass), processor, useFNF, options));
+            }
             instance = Proxy.newProxyInstance(clientKlass.getClassLoader(), new Class[]{clientKlass}, (p, m, a) -> {
-                if (m.getName().equals("toString") && m.getParameterCount() == 0) {
-                    return canonicalName + "$Proxy$" + ctx.getName();
-                }
-                final String idx = m.getName() + "<" + m.getParameterCount() + ">";
-                final Function<Object[], Object> handle;
-                if (cache.containsKey(idx)) {
-                    handle = cache.get(idx);
-                } else {
-                    final String signature = signature(m, clientKlass);
-                    final Function<Object[], Object[]> processor = argumentProcessor == null ? null : argumentProcessor.get(m.getName());
-                    if (m.getReturnType() == Void.TYPE) {
-                        handle = useFNF
-                            ? (processor == null ? args -> {
-                            ctx.routeingFNF(signature, args).subscribe();
-                            return null;
-                        } : args -> {
-                            ctx.routeingFNF(signature, processor.apply(args)).subscribe();
-                            return null;
-                        }) : (processor == null ? args -> {
-                            ctx.routeingRR(signature, args).block(ctx.getTimeout().get());
-                            return null;
-                        } : args -> {
-                            ctx.routeingRR(signature, processor.apply(args)).block(ctx.getTimeout().get());
-                            return null;
-                        });
-                    } else if (Result.class.isAssignableFrom(m.getReturnType())) {
-                        handle = processor == null ? args -> ctx.routeingRR(signature, args).block(ctx.getTimeout().get())
-                            : args -> ctx.routeingRR(signature, processor.apply(args)).block(ctx.getTimeout().get());
-                    } else if (Mono.class.isAssignableFrom(m.getReturnType())) {
-                        handle = processor == null ? args -> ctx.routeingRR(signature, args).flatMap(x -> {
-                            if (x.hasError()) return Mono.error(x.getError());
-                            else if (!x.hasResult()) return Mono.empty();
-                            else return Mono.just(x.getResult());
-                        })
-                            : args -> ctx.routeingRR(signature, processor.apply(args)).flatMap(x -> {
-                            if (x.hasError()) return Mono.error(x.getError());
-                            else if (!x.hasResult()) return Mono.empty();
-                            else return Mono.just(x.getResult());
-                        });
-                    } else if (Flux.class.isAssignableFrom(m.getReturnType())) {
-                        handle = processor == null ? args -> Objects.requireNonNull(ctx.routeingRS(signature, args), "request response got null result")
-                            : args -> Objects.requireNonNull(ctx.routeingRS(signature, processor.apply(args)), "request response got null result");
-                    } else {
-                        handle = processor == null ? args -> Objects.requireNonNull(ctx.routeingRR(signature, args).block(ctx.getTimeout().get()), "request response got null result").getOrThrow()
-                            : args -> Objects.requireNonNull(ctx.routeingRR(signature, processor.apply(args)).block(ctx.getTimeout().get()), "request response got null result").getOrThrow();
+                if (m.getDeclaringClass() == Object.class) {
+                    switch (m.getName()) {
+                        case "toString":
+                            return proxyName;
+                        case "hashCode":
+                            return System.identityHashCode(p);
+                        case "equals":
+                            return p == a[0];
+                        default:
+                            throw new UnsupportedOperationException(m.toString());
                     }
-                    cache.put(idx, handle);
                 }
+                final Function<Object[], Object> handle = handles.get(m);
+                if (handle == null) throw new IllegalStateException("no prepared handle for " + m + " of " + proxyName);
                 return handle.apply(a == null ? DEFAULT : a);
             });
-            ctx.addProxy(clientKlass, instance);
+            ctx.addProxy(clientKlass, options, instance);
             return instance;
         };
     }
 
+    /**
+     * prepare a client call handle of a method. request response calls are timed out on the timer wheel,
+     * a blocking caller waits without its own timer.
+     *
+     * @param options options of client, for timeout, prefetch and single flight of method
+     */
+    static Function<Object[], Object> clientHandle(ContextScope ctx, Method m, String signature, @Nullable Function<Object[], Object[]> processor, boolean useFNF, ClientOptions options) {
+        final Class<?> returnType = m.getReturnType();
+        final Duration timeout = options.timeoutOf(m.getName());
+        final int prefetch = options.prefetchOf(m.getName());
+        final int index = channelIndex(m);
+        final Cached cached = m.getAnnotation(Cached.class);
+        if (cached != null && ((returnType == Void.TYPE && useFNF) || index >= 0 || Flux.class.isAssignableFrom(returnType)))
+            throw new IllegalStateException("cached method should be a request response method: " + m);
+        final Function<Object[], Object[]> prepare = processor == null ? Function.identity() : processor;
+        if (returnType == Void.TYPE && useFNF) {
+            final Function<Object[], Object> remote = processor == null ? args -> {
+                ctx.routeingFNF(signature, args, timeout != null ? timeout : ctx.getTimeout().get()).subscribe();
+                return null;
+            } : args -> {
+                ctx.routeingFNF(signature, processor.apply(args), timeout != null ? timeout : ctx.getTimeout().get()).subscribe();
+                return null;
+            };
+            if (!options.isLocal()) return remote;
+            final Function<ContextServices, Function<Object[], Mono<Result<Object>>>> finder = s -> s.findHandler(signature);
+            return args -> {
+                final Function<Object[], Mono<Result<Object>>> handler = localHandlerOf(ctx, finder);
+                if (handler == null) return remote.apply(args);
+                Mono.defer(() -> handler.apply(localArguments(prepare.apply(args)))).subscribe();
+                return null;
+            };
+        } else if (index >= 0) {
+            final Function<Object[], Object> remote = processor == null ? args -> Objects.requireNonNull(ctx.routeingRC(signature, args, index, prefetch), "request channel got null result")
+                : args -> Objects.requireNonNull(ctx.routeingRC(signature, processor.apply(args), index, prefetch), "request channel got null result");
+            if (!options.isLocal()) return remote;
+            final Function<ContextServices, BiFunction<Object[], Flux<Object>, Flux<Object>>> finder = s -> s.getChannelHandlers().find(signature);
+            return args -> {
+                final BiFunction<Object[], Flux<Object>, Flux<Object>> handler = localHandlerOf(ctx, finder);
+                if (handler == null) return remote.apply(args);
+                final Object[] arguments = prepare.apply(args);
+                final Flux<Object> inbound = Flux.from((Publisher<?>) arguments[index]).map(ProxyUtil::localResult);
+                arguments[index] = null;
+                return Flux.defer(() -> handler.apply(localArguments(arguments), inbound)).concatMapIterable(ProxyUtil::localElements);
+            };
+        } else if (Flux.class.isAssignableFrom(returnType)) {
+            final Function<Object[], Object> remote = processor == null ? args -> Objects.requireNonNull(ctx.routeingRS(signature, args, prefetch), "request response got null result")
+                : args -> Objects.requireNonNull(ctx.routeingRS(signature, processor.apply(args), prefetch), "request response got null result");
+            if (!options.isLocal()) return remote;
+            final Function<ContextServices, Function<Object[], Flux<Object>>> finder = s -> s.findStreamHandler(signature);
+            return args -> {
+                final Function<Object[], Flux<Object>> handler = localHandlerOf(ctx, finder);
+                if (handler == null) return remote.apply(args);
+                return Flux.defer(() -> handler.apply(localArguments(prepare.apply(args)))).concatMapIterable(ProxyUtil::localElements);
+            };
+        }
+        Function<Object[], Mono<Result<Object>>> call = processor == null
+            ? args -> ctx.routeingRR(signature, args, timeout != null ? timeout : ctx.getTimeout().get())
+            : args -> ctx.routeingRR(signature, processor.apply(args), timeout != null ? timeout : ctx.getTimeout().get());
+        if (options.isLocal()) {
+            final Function<Object[], Mono<Result<Object>>> remote = call;
+            final Function<ContextServices, Function<Object[], Mono<Result<Object>>>> finder = s -> s.findHandler(signature);
+            call = args -> {
+                final Function<Object[], Mono<Result<Object>>> handler = localHandlerOf(ctx, finder);
+                if (handler == null) return remote.apply(args);
+                final Duration limit = timeout != null ? timeout : ctx.getTimeout().get();
+                //handler errors are results as remote ones, a timeout is an error as remote one
+                Mono<Result<Object>> local = Mono.defer(() -> handler.apply(localArguments(prepare.apply(args))))
+                    .onErrorResume(e -> Mono.just(Result.error(e)));
+                //a timeout could not fire while the handler runs on the thread of caller
+                if (limit != null && !limit.isZero() && !limit.isNegative()) local = local.subscribeOn(Schedulers.parallel());
+                return Timeouts.timeout(local, limit)
+                    .map(r -> Rpc.autoDelegate.get() ? r.map(ProxyUtil::localResult) : r);
+            };
+        }
+        if (options.isSingleFlight(m.getName())) call = new SingleFlight(call)::call;
+        if (cached != null) call = cached(ctx.prepareClientCache(signature, cached), call);
+        return adapt(returnType, call);
+    }
+
+    /**
+     * find a handler served in this JVM, the calling scope first, then the global and named scopes
+     */
+    static @Nullable <T> T localHandlerOf(ContextScope ctx, Function<ContextServices, T> finder) {
+        T handler = ctx instanceof ContextServices ? finder.apply((ContextServices) ctx) : null;
+        if (handler == null && Rpc.Global != ctx && Rpc.Global instanceof ContextServices)
+            handler = finder.apply((ContextServices) Rpc.Global);
+        if (handler != null) return handler;
+        for (Scope scope : Rpc.scopes.values()) {
+            if (scope == ctx || !(scope instanceof ContextServices)) continue;
+            handler = finder.apply((ContextServices) scope);
+            if (handler != null) return handler;
+        }
+        return null;
+    }
+
+    /**
+     * copy arguments of a local call as a remote one would, null values are kept
+     */
+    static Object[] localArguments(Object[] arguments) {
+        return Rpc.autoDelegate.get() ? Request.restore(Request.proc(arguments)) : arguments;
+    }
+
+    static Object localResult(Object result) {
+        return Rpc.autoDelegate.get() ? MimicUtil.autoDisguise(MimicUtil.autoMimic(result)) : result;
+    }
+
+    /**
+     * elements of a local stream, batches of a batched handler are unpacked as a remote caller would
+     */
+    static List<Object> localElements(Object element) {
+        if (!(element instanceof Response.Batch)) return Collections.singletonList(localResult(element));
+        final List<Object> elements = ((Response.Batch) element).elements;
+        return Rpc.autoDelegate.get() ? Seq.seq(elements).map(ProxyUtil::localResult).toList() : elements;
+    }
+
+    /**
+     * serve calls from cache, only successful results are cached
+     */
+    static Function<Object[], Mono<Result<Object>>> cached(LruCache<LruCache.Key, Result<Object>> cache, Function<Object[], Mono<Result<Object>>> call) {
+        return args -> {
+            final LruCache.Key key = new LruCache.Key(Request.encodeArguments(args));
+            final Result<Object> hit = cache.get(key);
+            if (hit != null) return Mono.just(hit);
+            return call.apply(args).doOnNext(r -> {
+                if (!r.hasError()) cache.put(key, r);
+            });
+        };
+    }
+
+    /**
+     * @param method method name, null for all methods
+     * @return prefix of signs of service or method
+     */
+    static String signPrefix(Class<?> service, @Nullable String method) {
+        return service.getCanonicalName() + DOMAIN_SPLITTER + (method == null ? "" : method + PARAMETER_DOMAIN_SPLITTER);
+    }
+
+    /**
+     * prepare a client call handle of a {@link Batched} method, calls are loaded by the bulk method.
+     *
+     * @param timeout timeout of bulk method, null to use the scope timeout
+     */
+    static Function<Object[], Object> batchedHandle(ContextScope ctx, Class<?> clientKlass, Method m, Batched batched, @Nullable Function<Object[], Object[]> processor, @Nullable Duration timeout) {
+        if (m.getParameterCount() != 1)
+            throw new IllegalStateException("batched method should have only one parameter: " + m);
+        if (Flux.class.isAssignableFrom(m.getReturnType()) || channelIndex(m) >= 0)
+            throw new IllegalStateException("batched method should be a request response method: " + m);
+        final Method bulk = Seq.of(clientKlass.getMethods())
+            .filter(x -> x.getName().equals(batched.value()) && x.getParameterCount() == 1 && x.getParameterTypes()[0].isAssignableFrom(List.class))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("not found bulk method '" + batched.value() + "' with a List parameter of " + m));
+        final BatchLoader loader = new BatchLoader(ctx, signature(bulk, clientKlass), batched.window(), batched.size(), timeout);
+        return adapt(m.getReturnType(), processor == null
+            ? args -> loader.load(args[0])
+            : args -> loader.load(processor.apply(args)[0]));
+    }
+
+    /**
+     * adapt a call to the return type of method
+     */
+    static Function<Object[], Object> adapt(Class<?> returnType, Function<Object[], Mono<Result<Object>>> call) {
+        if (returnType == Void.TYPE) {
+            return args -> {
+                call.apply(args).block();
+                return null;
+            };
+        } else if (Result.class.isAssignableFrom(returnType)) {
+            return args -> call.apply(args).block();
+        } else if (Mono.class.isAssignableFrom(returnType)) {
+            //failures of making the call are signaled to the subscriber
+            return args -> Mono.defer(() -> call.apply(args)).flatMap(ProxyUtil::unwrap);
+        } else if (isFutureType(returnType)) {
+            return args -> Mono.defer(() -> call.apply(args)).flatMap(ProxyUtil::unwrap).toFuture();
+        } else {
+            return args -> Objects.requireNonNull(call.apply(args).block(), "request response got null result").getOrThrow();
+        }
+    }
+
+    /**
+     * a request channel method returns a Flux and has exactly one Flux parameter, which is the outbound elements.<br>
+     * other publisher parameters could not be transmitted, they are rejected.
+     *
+     * @return index of the Flux parameter of a request channel method, or -1 if method has no publisher parameter
+     * @throws IllegalStateException if method has unsupported publisher parameters
+     */
+    static int channelIndex(Method m) {
+        final Class<?>[] types = m.getParameterTypes();
+        int index = -1;
+        for (int i = 0; i < types.length; i++) {
+            if (!Publisher.class.isAssignableFrom(types[i])) continue;
+            if (index >= 0 || types[i] != Flux.class || !Flux.class.isAssignableFrom(m.getReturnType()))
+                throw new IllegalStateException("unsupported publisher parameter of " + m + ", a request channel method should return Flux and have exactly one Flux parameter");
+            index = i;
+        }
+        return index;
+    }
+
+    /**
+     * @return true if type is a future type could be satisfied by a {@link CompletableFuture}
+     */
+    static boolean isFutureType(Class<?> type) {
+        return type != Object.class && type.isAssignableFrom(CompletableFuture.class);
+    }
+
+    /**
+     * adapter of a asynchronous return value to Mono, or null if type is not asynchronous
+     */
+    @SuppressWarnings("unchecked")
+    static @Nullable Function<Object, Mono<Object>> asyncAdapter(Class<?> type) {
+        if (Mono.class.isAssignableFrom(type)) return x -> x == null ? Mono.empty() : (Mono<Object>) x;
+        if (CompletionStage.class.isAssignableFrom(type))
+            return x -> x == null ? Mono.empty() : Mono.fromCompletionStage((CompletionStage<Object>) x);
+        //a plain Future could only be waited
+        if (Future.class.isAssignableFrom(type))
+            return x -> x == null ? Mono.empty() : Mono.fromCallable(((Future<Object>) x)::get).subscribeOn(Schedulers.boundedElastic());
+        return null;
+    }
+
+    static Mono<Object> unwrap(Result<Object> x) {
+        if (x.hasError()) return Mono.error(x.getError());
+        else if (!x.hasResult()) return Mono.empty();
+        else return Mono.just(x.getResult());
+    }
+
+    /**
+     * pack elements into batches of {@link ServiceOptions#getBatchSize()}, a batch is sent when it's full or
+     * {@link ServiceOptions#getBatchWindow()} elapsed. elements are requested by remote demand of batches.
+     */
+    static Flux<Object> batch(Flux<Object> elements, ServiceOptions options) {
+        final Flux<List<Object>> batches = options.getBatchWindow() == null
+            ? elements.buffer(options.getBatchSize())
+            : BatchBuffer.of(elements, options.getBatchSize(), options.getBatchWindow());
+        return batches.map(Response.Batch::new);
+    }
+
+    MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * compile a service method to a handle of type {@code (Object[])Object}: bound to service, spread to arity,
+     * then filtered by the result processor if any.
+     *
+     * @param service   the service instance
+     * @param method    the method
+     * @param processor result processor or null
+     * @return handle to invoke with {@link MethodHandle#invokeExact}
+     */
+    @SneakyThrows
+    static MethodHandle invokerOf(Object service, Method method, @Nullable Function<Object, Object> processor) {
+        try {
+            method.setAccessible(true);
+        } catch (RuntimeException ignore) {
+            //not accessible will fail on unreflect
+        }
+        MethodHandle handle = MethodHandles.lookup().unreflect(method)
+            .bindTo(service)
+            .asSpreader(Object[].class, method.getParameterCount())
+            .asType(INVOKER_TYPE);
+        if (processor != null) {
+            handle = MethodHandles.filterReturnValue(handle, PROCESSOR_APPLY.bindTo(processor));
+        }
+        return handle;
+    }
+
+    MethodHandle PROCESSOR_APPLY = processorApply();
+
     @SneakyThrows
-    static Object sneakyInvoker(Object instance, Method method, Object[] args) {
-        return method.invoke(instance, args);
+    static MethodHandle processorApply() {
+        return MethodHandles.publicLookup().findVirtual(Function.class, "apply", MethodType.methodType(Object.class, Object.class));
     }
 
     @SuppressWarnings("unchecked")
     static ServiceRegister serviceRegisterBuilder(
-        ContextServices ctx
+        ContextScope ctx
     ) {
-        return (service, serviceKlass, resultProcessor) -> {
+        return (service, serviceKlass, resultProcessor, serviceOptions) -> {
             final String canonicalName = serviceKlass.getCanonicalName();
+            //reject unsupported methods before any registration
+            for (Method method : serviceKlass.getMethods()) {
+                if (!Modifier.isStatic(method.getModifiers())) channelIndex(method);
+            }
             if (!ctx.addService(serviceKlass, service)) {
                 throw new IllegalStateException("service is already registered!" + canonicalName + ";");
             }
+            final ServiceOptions options = serviceOptions == null ? ServiceOptions.DEFAULT : serviceOptions;
+            final Bulkhead serviceBulkhead = ctx.prepareBulkhead(canonicalName, options);
             for (Method method : serviceKlass.getMethods()) {
-                Function<Object[], Result<Object>> invoker = null;
-                Function<Object[], Flux<Object>> invokerFlux = null;
-                if (resultProcessor != null && resultProcessor.containsKey(method.getName())) {
-                    final Function<Object, Object> processor = resultProcessor.get(method.getName());
-                    if (Result.class.isAssignableFrom(method.getReturnType())) {
-                        invoker = args -> (Result<Object>) processor.apply(sneakyInvoker(service, method, args));
-                    } else if (Flux.class.isAssignableFrom(method.getReturnType())) {
-                        invokerFlux = args -> (Flux<Object>) processor.apply(sneakyInvoker(service, method, args));
-                    } else if (Mono.class.isAssignableFrom(method.getReturnType())) {
-                        invoker = args -> Result.wrap(() -> ((Mono<Object>) processor.apply(sneakyInvoker(service, method, args))).block(ctx.getTimeout().get()));
-                    } else {
-                        invoker = args -> Result.wrap(() -> processor.apply(sneakyInvoker(service, method, args)));
-                    }
-                } else {
-                    if (Result.class.isAssignableFrom(method.getReturnType())) {
-                        invoker = args -> (Result<Object>) sneakyInvoker(service, method, args);
-                    } else if (Flux.class.isAssignableFrom(method.getReturnType())) {
-                        invokerFlux = args -> (Flux<Object>) sneakyInvoker(service, method, args);
-                    } else if (Mono.class.isAssignableFrom(method.getReturnType())) {
-                        invoker = args -> Result.wrap(() -> ((Mono<Object>) sneakyInvoker(service, method, args)).block(ctx.getTimeout().get()));
-                    } else {
-                        invoker = args -> Result.wrap(() -> sneakyInvoker(service, method, args));
-                    }
-                }
-                if (invoker != null) {
-                    ctx.addHandler(signature(method, serviceKlass), invoker);
+                if (Modifier.isStatic(method.getModifiers())) continue;
+                final MethodHandle handle = invokerOf(service, method, resultProcessor == null ? null : resultProcessor.get(method.getName()));
+                final Class<?> returnType = method.getReturnType();
+                final String sign = signature(method, serviceKlass);
+                final ServiceOptions methodOptions = options.of(method.getName());
+                final Bulkhead bulkhead = methodOptions == options ? serviceBulkhead : ctx.prepareBulkhead(sign, methodOptions);
+                final int index = channelIndex(method);
+                if (index >= 0) {
+                    final BiFunction<Object[], Flux<Object>, Flux<Object>> invoker = (args, inbound) -> {
+                        try {
+                            args[index] = inbound;
+                            return (Flux<Object>) (Object) handle.invokeExact(args);
+                        } catch (Throwable e) {
+                            return Flux.error(e);
+                        }
+                    };
+                    final BiFunction<Object[], Flux<Object>, Flux<Object>> isolated = bulkhead == null ? invoker : (args, inbound) -> bulkhead.flux(() -> invoker.apply(args, inbound));
+                    ctx.addChannelHandler(sign, methodOptions.getBatchSize() > 1 ? (args, inbound) -> batch(isolated.apply(args, inbound), methodOptions) : isolated);
+                } else if (Flux.class.isAssignableFrom(returnType)) {
+                    final Function<Object[], Flux<Object>> invoker = args -> {
+                        try {
+                            return (Flux<Object>) (Object) handle.invokeExact(args);
+                        } catch (Throwable e) {
+                            return Flux.error(e);
+                        }
+                    };
+                    final Function<Object[], Flux<Object>> isolated = bulkhead == null ? invoker : args -> bulkhead.flux(() -> invoker.apply(args));
+                    ctx.addStreamHandler(sign, methodOptions.getBatchSize() > 1 ? isolated.andThen(f -> batch(f, methodOptions)) : isolated);
+                } else if (asyncAdapter(returnType) != null) {
+                    final Function<Object, Mono<Object>> adapter = asyncAdapter(returnType);
+                    final Function<Object[], Mono<Result<Object>>> invoker = args -> {
+                        try {
+                            return adapter.apply((Object) handle.invokeExact(args))
+                                .map(Result::ok)
+                                .defaultIfEmpty(Result.ok(null))
+                                .onErrorResume(e -> Mono.just(Result.error(e)));
+                        } catch (Throwable e) {
+                            return Mono.just(Result.error(e));
+                        }
+                    };
+                    ctx.addAsyncHandler(sign, bulkhead == null ? invoker : args -> bulkhead.mono(() -> invoker.apply(args)));
                 } else {
-                    ctx.addStreamHandler(signature(method, serviceKlass), invokerFlux);
+                    final Function<Object[], Result<Object>> invoker = Result.class.isAssignableFrom(returnType)
+                        ? args -> {
+                        try {
+                            return (Result<Object>) (Object) handle.invokeExact(args);
+                        } catch (Throwable e) {
+                            return Result.error(e);
+                        }
+                    } : args -> {
+                        try {
+                            return Result.ok((Object) handle.invokeExact(args));
+                        } catch (Throwable e) {
+                            return Result.error(e);
+                        }
+                    };
+                    if (bulkhead == null) ctx.addHandler(sign, invoker);
+                    else ctx.addAsyncHandler(sign, args -> bulkhead.mono(() -> {
+                        final Result<Object> res = invoker.apply(args);
+                        return Mono.just(res != null ? res : Result.ok(null));
+                    }));
                 }
+                if (methodOptions.getMemoize() > 0 && ctx.getHandlers().contains(sign))
+                    ctx.getMemos().put(sign, new LruCache<>(methodOptions.getMemoize(), methodOptions.getMemoizeTtl()));
             }
+            ctx.addAsyncHandler(batchSign(canonicalName), ctx::onBatch);
+            //sync after handlers registered, then remotes will know handler ids
+            ctx.updateRoutes();
         };
 
     }
@@ -150,7 +466,8 @@ interface ProxyUtil {
         void register(
             Object service,
             Class<?> serviceKlass,
-            @Nullable Map<String, Function<Object, Object>> resultProcessor
+            @Nullable Map<String, Function<Object, Object>> resultProcessor,
+            @Nullable ServiceOptions options
         );
     }
 
@@ -159,7 +476,8 @@ interface ProxyUtil {
         Object create(
             Class<?> clientKlass,
             @Nullable Map<String, Function<Object[], Object[]>> argumentProcessor,
-            boolean useFNF
+            boolean useFNF,
+            @Nullable ClientOptions options
         );
     }
 }
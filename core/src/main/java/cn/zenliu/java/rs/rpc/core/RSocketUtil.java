@@ -2,6 +2,11 @@ package cn.zenliu.java.rs.rpc.core;
 
 import cn.zenliu.java.rs.rpc.api.Config;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.rsocket.Closeable;
 import io.rsocket.Payload;
 import io.rsocket.SocketAcceptor;
@@ -11,10 +16,16 @@ import io.rsocket.core.Resume;
 import io.rsocket.frame.decoder.PayloadDecoder;
 import io.rsocket.transport.ClientTransport;
 import io.rsocket.transport.ServerTransport;
+import io.rsocket.transport.local.LocalClientTransport;
+import io.rsocket.transport.local.LocalServerTransport;
 import io.rsocket.transport.netty.client.TcpClientTransport;
 import io.rsocket.transport.netty.client.WebsocketClientTransport;
 import io.rsocket.transport.netty.server.TcpServerTransport;
 import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.tcp.TcpClient;
+import reactor.netty.tcp.TcpResources;
+import reactor.netty.tcp.TcpServer;
 import reactor.util.retry.Retry;
 
 import java.nio.charset.StandardCharsets;
@@ -32,11 +43,23 @@ public interface RSocketUtil {
 
     static ServerTransport<? extends Closeable> buildTransport(Config.ServerConfig config) {
         switch (config.getMode()) {
-            case 0:
-                return config.getBindAddress() != null ?
-                    TcpServerTransport.create(config.getBindAddress(),
-                        Objects.requireNonNull(config.getPort(), "must with PORT defined for server mode 0"))
-                    : TcpServerTransport.create(Objects.requireNonNull(config.getPort(), "must with PORT defined for server mode 0"));
+            case 0: {
+                TcpServer server = TcpServer.create()
+                    .port(Objects.requireNonNull(config.getPort(), "must with PORT defined for server mode 0"));
+                if (config.getBindAddress() != null) server = server.host(config.getBindAddress());
+                final Integer flushes = config.getFlushConsolidation();
+                if (flushes != null) server = server.doOnConnection(c -> consolidateFlush(c, flushes));
+                return TcpServerTransport.create(applySocket(server, config, false));
+            }
+            case 2:
+                return LocalServerTransport.create(Objects.requireNonNull(config.getBindAddress(), "must with BIND ADDRESS as name defined for server mode 2"));
+            case 3: {
+                final DomainSocketAddress address = domainSocket(Objects.requireNonNull(config.getBindAddress(), "must with BIND ADDRESS as path defined for server mode 3"));
+                TcpServer server = TcpServer.create().bindAddress(() -> address);
+                final Integer flushes = config.getFlushConsolidation();
+                if (flushes != null) server = server.doOnConnection(c -> consolidateFlush(c, flushes));
+                return TcpServerTransport.create(applySocket(server, config, true));
+            }
             //TODO how to isolate HTTPServer?
 
 
@@ -44,6 +67,63 @@ public interface RSocketUtil {
         throw new IllegalStateException("not supported transport mode:" + config.getMode());
     }
 
+    String FLUSH_CONSOLIDATION = "rpc.flushConsolidation";
+
+    /**
+     * flushes are delayed to the end of current read loop or event loop tick, and forced after max flushes
+     */
+    static void consolidateFlush(Connection connection, int maxFlushes) {
+        connection.addHandlerFirst(FLUSH_CONSOLIDATION, new FlushConsolidationHandler(Math.max(maxFlushes, 1), true));
+    }
+
+    static DomainSocketAddress domainSocket(String path) {
+        if (!Epoll.isAvailable())
+            throw new IllegalStateException("UNIX domain socket requires native epoll transport", Epoll.unavailabilityCause());
+        return new DomainSocketAddress(path);
+    }
+
+    /**
+     * UNIX domain socket always uses native transport
+     */
+    static boolean useNative(Config config, boolean domain) {
+        return domain || config.getSocket() == null || !Boolean.FALSE.equals(config.getSocket().getPreferNative());
+    }
+
+    /**
+     * loops and socket options. TCP options are skipped for UNIX domain socket, native only options are skipped when epoll is not in use
+     */
+    static TcpServer applySocket(TcpServer server, Config.ServerConfig config, boolean domain) {
+        final boolean useNative = useNative(config, domain);
+        if (config.getLoop() != null) server = server.runOn(EventLoops.of(config.getLoop()), useNative);
+        else if (!useNative) server = server.runOn(TcpResources.get(), false);
+        final Config.SocketSetting socket = config.getSocket();
+        if (socket == null) return server;
+        if (socket.getSendBufferSize() != null) server = server.childOption(ChannelOption.SO_SNDBUF, socket.getSendBufferSize());
+        if (socket.getReceiveBufferSize() != null) server = server.childOption(ChannelOption.SO_RCVBUF, socket.getReceiveBufferSize());
+        if (domain) return server;
+        if (socket.getTcpNoDelay() != null) server = server.childOption(ChannelOption.TCP_NODELAY, socket.getTcpNoDelay());
+        if (useNative && Epoll.isAvailable()) {
+            if (socket.getReusePort() != null) server = server.option(EpollChannelOption.SO_REUSEPORT, socket.getReusePort());
+            if (socket.getQuickAck() != null) server = server.childOption(EpollChannelOption.TCP_QUICKACK, socket.getQuickAck());
+        }
+        return server;
+    }
+
+    static TcpClient applySocket(TcpClient client, Config.ClientConfig config, boolean domain) {
+        final boolean useNative = useNative(config, domain);
+        if (config.getLoop() != null) client = client.runOn(EventLoops.of(config.getLoop()), useNative);
+        else if (!useNative) client = client.runOn(TcpResources.get(), false);
+        final Config.SocketSetting socket = config.getSocket();
+        if (socket == null) return client;
+        if (socket.getSendBufferSize() != null) client = client.option(ChannelOption.SO_SNDBUF, socket.getSendBufferSize());
+        if (socket.getReceiveBufferSize() != null) client = client.option(ChannelOption.SO_RCVBUF, socket.getReceiveBufferSize());
+        if (domain) return client;
+        if (socket.getTcpNoDelay() != null) client = client.option(ChannelOption.TCP_NODELAY, socket.getTcpNoDelay());
+        if (useNative && Epoll.isAvailable() && socket.getQuickAck() != null)
+            client = client.option(EpollChannelOption.TCP_QUICKACK, socket.getQuickAck());
+        return client;
+    }
+
     static Resume buildResume(Config.ResumeSetting config, boolean client) {
         final Resume resume = new Resume();
         if (client) if (config.getRetry() != null) resume.retry(buildRetry(config.getRetry()));
@@ -61,13 +141,26 @@ public interface RSocketUtil {
 
     static ClientTransport buildTransport(Config.ClientConfig config) {
         switch (config.getMode()) {
-            case 0:
-                return TcpClientTransport.create(
-                    Objects.requireNonNull(config.getHost(), "must with HOST defined for client mode 0"),
-                    Objects.requireNonNull(config.getPort(), "must with PORT defined for client mode 0"));
+            case 0: {
+                TcpClient client = TcpClient.create()
+                    .host(Objects.requireNonNull(config.getHost(), "must with HOST defined for client mode 0"))
+                    .port(Objects.requireNonNull(config.getPort(), "must with PORT defined for client mode 0"));
+                final Integer flushes = config.getFlushConsolidation();
+                if (flushes != null) client = client.doOnConnected(c -> consolidateFlush(c, flushes));
+                return TcpClientTransport.create(applySocket(client, config, false));
+            }
             case 1:
                 return WebsocketClientTransport.create(
                     Objects.requireNonNull(config.getUri(), "must with URI defined for client mode 1"));
+            case 2:
+                return LocalClientTransport.create(Objects.requireNonNull(config.getHost(), "must with HOST as name defined for client mode 2"));
+            case 3: {
+                final DomainSocketAddress address = domainSocket(Objects.requireNonNull(config.getHost(), "must with HOST as path defined for client mode 3"));
+                TcpClient client = TcpClient.create().remoteAddress(() -> address);
+                final Integer flushes = config.getFlushConsolidation();
+                if (flushes != null) client = client.doOnConnected(c -> consolidateFlush(c, flushes));
+                return TcpClientTransport.create(applySocket(client, config, true));
+            }
         }
         throw new IllegalStateException("not supported transport mode:" + config.getMode());
     }
@@ -0,0 +1,190 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Append only registry: a hashed key to slot index with a slot indexed table of values.<br>
+ * Readers never lock (a volatile immutable snapshot), writers are synchronized and copy on write.<br>
+ * Slots are stable until {@link #clear()}, so they are safe to be used as ids.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-23
+ */
+public final class Registry<V> {
+    private final @Nullable Function<String, String> aliasOf;
+    private volatile Table table = Table.EMPTY;
+
+    /**
+     * @param aliasOf compute an alias of a key, the alias is only used by {@link #resolve(String)} when there is no same key
+     */
+    Registry(@Nullable Function<String, String> aliasOf) {
+        this.aliasOf = aliasOf;
+    }
+
+    public static <V> Registry<V> of() {
+        return new Registry<>(null);
+    }
+
+    public static <V> Registry<V> withAlias(Function<String, String> aliasOf) {
+        return new Registry<>(aliasOf);
+    }
+
+    static final class Table {
+        static final Table EMPTY = new Table(Collections.emptyMap(), Collections.emptyMap(), new String[0], new Object[0]);
+        final Map<String, Integer> index;
+        final Map<String, Integer> alias;
+        final String[] keys;
+        final Object[] values;
+
+        Table(Map<String, Integer> index, Map<String, Integer> alias, String[] keys, Object[] values) {
+            this.index = index;
+            this.alias = alias;
+            this.keys = keys;
+            this.values = values;
+        }
+    }
+
+    //region Readers
+
+    /**
+     * @return slot of key or -1
+     */
+    public int indexOf(String key) {
+        final Integer i = table.index.get(key);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * @return slot of key, or slot of the alias if key not exists, or -1
+     */
+    public int resolve(String key) {
+        final Table t = table;
+        Integer i = t.index.get(key);
+        if (i == null) i = t.alias.get(key);
+        return i == null ? -1 : i;
+    }
+
+    @SuppressWarnings("unchecked")
+    public @Nullable V get(int slot) {
+        final Object[] values = table.values;
+        return slot < 0 || slot >= values.length ? null : (V) values[slot];
+    }
+
+    public @Nullable V find(String key) {
+        final Table t = table;
+        final Integer i = t.index.get(key);
+        return i == null ? null : get(i);
+    }
+
+    public @Nullable String key(int slot) {
+        final String[] keys = table.keys;
+        return slot < 0 || slot >= keys.length ? null : keys[slot];
+    }
+
+    public boolean contains(String key) {
+        return table.index.containsKey(key);
+    }
+
+    public int size() {
+        return table.keys.length;
+    }
+
+    public boolean isEmpty() {
+        return table.keys.length == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<String, V> consumer) {
+        final Table t = table;
+        for (int i = 0; i < t.keys.length; i++) {
+            consumer.accept(t.keys[i], (V) t.values[i]);
+        }
+    }
+
+    public List<String> keys() {
+        return Collections.unmodifiableList(Arrays.asList(table.keys));
+    }
+    //endregion
+
+    //region Writers
+
+    /**
+     * @return new slot of key, or -1 if key already exists
+     */
+    public synchronized int prepare(String key) {
+        if (table.index.containsKey(key)) return -1;
+        return append(key, null);
+    }
+
+    /**
+     * @return new slot with value, or -1 if key already exists
+     */
+    public synchronized int register(String key, V value) {
+        if (table.index.containsKey(key)) return -1;
+        return append(key, value);
+    }
+
+    public synchronized int getOrAdd(String key) {
+        final int i = indexOf(key);
+        if (i != -1) return i;
+        return append(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized V computeIfAbsent(String key, Function<String, V> supplier) {
+        final int i = getOrAdd(key);
+        final V v = (V) table.values[i];
+        if (v != null) return v;
+        final V nv = supplier.apply(key);
+        set(i, nv);
+        return nv;
+    }
+
+    public synchronized void set(int slot, V value) {
+        final Table t = table;
+        if (slot < 0 || slot >= t.values.length) throw new IndexOutOfBoundsException("slot " + slot + " not exists");
+        final Object[] values = Arrays.copyOf(t.values, t.values.length);
+        values[slot] = value;
+        table = new Table(t.index, t.alias, t.keys, values);
+    }
+
+    public synchronized void clear() {
+        table = Table.EMPTY;
+    }
+
+    private int append(String key, @Nullable V value) {
+        final Table t = table;
+        final int slot = t.keys.length;
+        final Map<String, Integer> index = new HashMap<>(t.index);
+        index.put(key, slot);
+        Map<String, Integer> alias = t.alias;
+        final String a = aliasOf == null ? null : aliasOf.apply(key);
+        if (a != null && !alias.containsKey(a)) {
+            alias = new HashMap<>(alias);
+            alias.put(a, slot);
+        }
+        final String[] keys = Arrays.copyOf(t.keys, slot + 1);
+        keys[slot] = key;
+        final Object[] values = Arrays.copyOf(t.values, slot + 1);
+        values[slot] = value;
+        table = new Table(index, alias, keys, values);
+        return slot;
+    }
+    //endregion
+
+    @Override
+    public String toString() {
+        final Table t = table;
+        final StringBuilder b = new StringBuilder("{");
+        for (int i = 0; i < t.keys.length; i++) {
+            if (i > 0) b.append(", ");
+            b.append(i).append(':').append(t.keys[i]).append('=').append(t.values[i]);
+        }
+        return b.append('}').toString();
+    }
+}
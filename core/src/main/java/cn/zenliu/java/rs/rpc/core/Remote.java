@@ -29,13 +29,16 @@ import java.util.*;
 public final class Remote implements Serializable {
     static final String NONE_META_NAME = "UNK";
     private static final long serialVersionUID = -7451694137919068872L;
-    public static Comparator<Remote> weightComparator = Comparator.comparingInt(Remote::getWeight);
     /**
      * Remote Name
      */
     @Builder.Default final String name = NONE_META_NAME;
     @Builder.Default final Set<String> service = new HashSet<>();
     @Builder.Default final boolean resume = false;
+    /**
+     * handler sign ids advertised by remote
+     */
+    @Builder.Default transient Map<String, Integer> signs = Collections.emptyMap();
     /**
      * Remote RSocket
      */
@@ -48,6 +51,10 @@ public final class Remote implements Serializable {
      * weight to do load balance or something else
      */
     @Builder.Default transient int weight = 1;
+    /**
+     * call statistics for load balance, kept across meta updates
+     */
+    @Builder.Default transient RemoteStats stats = new RemoteStats();
     /**
      * remote index for faster location
      */
@@ -58,6 +65,7 @@ public final class Remote implements Serializable {
             .name(r.name)
             .resume(resume)
             .service(r.service == null || r.service.isEmpty() ? Collections.emptySet() : new HashSet<>(r.service))
+            .signs(r.signs == null || r.signs.isEmpty() ? Collections.emptyMap() : new HashMap<>(r.signs))
             .build();
 
     }
@@ -68,6 +76,7 @@ public final class Remote implements Serializable {
         map.put("server", x.server.server);
         map.put("service", x.service);
         map.put("weight", x.getWeight());
+        map.put("stats", x.stats.dump());
         map.put("disposed", x.socket.isDisposed());
         return map;
 
@@ -90,6 +99,11 @@ public final class Remote implements Serializable {
         return this;
     }
 
+    public Remote setStats(@NotNull RemoteStats stats) {
+        this.stats = stats;
+        return this;
+    }
+
     public Remote setIdx(int idx) {
         this.idx = idx;
         return this;
@@ -106,13 +120,23 @@ public final class Remote implements Serializable {
         return service.contains(root);
     }
 
+    /**
+     * @param sign handler sign
+     * @return the id advertised by remote or -1
+     */
+    public int methodOf(String sign) {
+        final Integer id = signs.get(sign);
+        return id == null ? -1 : id;
+    }
+
     public Remote updateFromMeta(ServMeta meta) {
         //always a new one for match remove logic
         return fromMeta(meta, resume)
             .setServer(server)
             .setSocket(socket)
             .setIdx(idx)
-            .setWeight(1);
+            .setWeight(weight)
+            .setStats(stats);
     }
 
     public Remote higher() {
@@ -135,6 +159,7 @@ public final class Remote implements Serializable {
             ", " + (server.serverMode ? "server" : "client") +
             '}' +
             ",w:" + weight +
+            "," + stats +
             ",i:" + idx +
             "}";
     }
@@ -157,7 +182,7 @@ public final class Remote implements Serializable {
     public ServMeta tryHandleMeta(Payload meta) {
         //a client is never know if server support resume(also no need to )
         try {
-            ServMeta me = Proto.from(ByteBufUtil.getBytes(meta.sliceMetadata()), ServMeta.class);
+            ServMeta me = Proto.from(meta.sliceMetadata(), ServMeta.class);
             meta.release();
             return me;
         } catch (Exception e) {
@@ -0,0 +1,84 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remotes serving one domain: a copy on write array, members are distinguished by identity,
+ * so replicas with same name and services never collapse.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-24
+ */
+public final class RemoteGroup {
+    static final Remote[] EMPTY = new Remote[0];
+    private volatile Remote[] remotes = EMPTY;
+    /**
+     * rotating cursor for strategies
+     */
+    final AtomicInteger cursor = new AtomicInteger();
+    /**
+     * domain specific balancer, null to use the scope one
+     */
+    volatile @Nullable LoadBalancer balancer;
+
+    /**
+     * @return snapshot of members, must not modify
+     */
+    public Remote[] remotes() {
+        return remotes;
+    }
+
+    public boolean isEmpty() {
+        return remotes.length == 0;
+    }
+
+    public int size() {
+        return remotes.length;
+    }
+
+    /**
+     * @return next non negative cursor value
+     */
+    public int next() {
+        return cursor.getAndIncrement() & Integer.MAX_VALUE;
+    }
+
+    public @Nullable Remote select(LoadBalancer fallback) {
+        final Remote[] current = remotes;
+        if (current.length == 0) return null;
+        if (current.length == 1) return current[0];
+        final LoadBalancer b = balancer;
+        return (b != null ? b : fallback).select(this, current);
+    }
+
+    public synchronized boolean add(Remote remote) {
+        final Remote[] current = remotes;
+        for (Remote r : current) if (r == remote) return false;
+        final Remote[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = remote;
+        remotes = next;
+        return true;
+    }
+
+    public synchronized boolean remove(Remote remote) {
+        final Remote[] current = remotes;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != remote) continue;
+            final Remote[] next = new Remote[current.length - 1];
+            System.arraycopy(current, 0, next, 0, i);
+            System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+            remotes = next;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(remotes);
+    }
+}
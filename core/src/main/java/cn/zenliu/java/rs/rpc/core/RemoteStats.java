@@ -0,0 +1,119 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call statistics of a Remote: in-flight requests and a peak EWMA of latency, feeds {@link LoadBalancer}.<br>
+ * Survives Remote meta updates.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-24
+ */
+public final class RemoteStats {
+    /**
+     * decay window of latency samples
+     */
+    static final double DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+    final AtomicInteger inflight = new AtomicInteger();
+    final LongAdder total = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    /**
+     * updates are racy but tolerated: a lost sample only delays convergence
+     */
+    private volatile double ewma;
+    private volatile long stamp = System.nanoTime();
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * @return latency EWMA in nanos, 0 when never sampled
+     */
+    public double getLatency() {
+        return ewma;
+    }
+
+    /**
+     * load cost: latency weighted by outstanding requests, a never sampled remote is cheapest
+     */
+    public double cost() {
+        return (ewma + 1) * (inflight.get() + 1);
+    }
+
+    long begin() {
+        inflight.incrementAndGet();
+        total.increment();
+        return System.nanoTime();
+    }
+
+    void end(long start, SignalType signal) {
+        inflight.decrementAndGet();
+        if (signal == SignalType.ON_ERROR) errors.increment();
+        if (signal != SignalType.CANCEL) sample(System.nanoTime() - start);
+    }
+
+    void sample(long rtt) {
+        final long now = System.nanoTime();
+        final double current = ewma;
+        if (rtt > current) {
+            //peak: react to a slow down immediately
+            ewma = rtt;
+        } else {
+            final double w = Math.exp(-(now - stamp) / DECAY_NANOS);
+            ewma = current * w + rtt * (1 - w);
+        }
+        stamp = now;
+    }
+
+    public <T> Mono<T> track(Mono<T> source) {
+        return Mono.defer(() -> {
+            final long start = begin();
+            return source.doFinally(s -> end(start, s));
+        });
+    }
+
+    /**
+     * latency of stream is sampled on first element
+     */
+    public <T> Flux<T> track(Flux<T> source) {
+        return Flux.defer(() -> {
+            final long start = begin();
+            final AtomicBoolean sampled = new AtomicBoolean();
+            return source
+                .doOnNext(x -> {
+                    if (sampled.compareAndSet(false, true)) sample(System.nanoTime() - start);
+                })
+                .doFinally(s -> {
+                    inflight.decrementAndGet();
+                    if (s == SignalType.ON_ERROR) errors.increment();
+                    else if (s == SignalType.ON_COMPLETE && sampled.compareAndSet(false, true))
+                        sample(System.nanoTime() - start);
+                });
+        });
+    }
+
+    public Map<String, Object> dump() {
+        final Map<String, Object> map = new HashMap<>();
+        map.put("inflight", inflight.get());
+        map.put("total", total.sum());
+        map.put("errors", errors.sum());
+        map.put("latency", ewma / 1000.0 + " μs");
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "STATS{inflight:" + inflight.get() + ",total:" + total.sum() + ",errors:" + errors.sum() + ",latency:" + (long) ewma + "ns}";
+    }
+}
@@ -1,8 +1,6 @@
 package cn.zenliu.java.rs.rpc.core;
 
-import io.netty.buffer.ByteBufUtil;
 import io.rsocket.Payload;
-import io.rsocket.util.DefaultPayload;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.val;
@@ -11,7 +9,6 @@ import mimic.NULL;
 import org.jetbrains.annotations.Nullable;
 import org.jooq.lambda.Seq;
 
-import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -25,34 +22,43 @@ public @Builder
 @Getter
 class Request {
     /**
-     * timestamp of sending
-     */
-    @Builder.Default final long timestamp = System.currentTimeMillis();
-    /**
-     * arguments must not with Interfaces
+     * arguments must not with Interfaces. a request is only arguments, so equal arguments are encoded to equal bytes
      */
     final Object[] arguments;
 
     public Object[] getArguments() {
-        if (arguments == null || arguments.length == 0) return arguments;
-        return Seq.of(arguments).map(x ->
-            x instanceof NULL ? null :
-                Rpc.autoDelegate.get() ? MimicUtil.autoDisguise(x) : x
-        ).toArray();
+        return restore(arguments);
     }
 
     public static Payload build(String domain, String scope, Object[] arguments, boolean trace) {
+        return build(domain, -1, scope, arguments, trace);
+    }
+
+    /**
+     * @param method the handler id advertised by target remote, -1 to send with sign
+     */
+    public static Payload build(String domain, int method, String scope, Object[] arguments, boolean trace) {
+        return build(domain, method, scope, arguments, trace, Meta.NO_DEADLINE);
+    }
+
+    /**
+     * @param deadline deadline in {@link System#nanoTime()}, {@link Meta#NO_DEADLINE} for none
+     */
+    public static Payload build(String domain, int method, String scope, Object[] arguments, boolean trace, long deadline) {
         final Request request = Request.builder()
             .arguments(proc(arguments))
             .build();
-        val meta = Meta.builder().sign(domain).from(scope);
+        val meta = Meta.builder().from(scope);
+        if (method >= 0) meta.method(method);
+        else meta.sign(domain);
         if (trace) meta.trace(true);
-        return DefaultPayload.create(Proto.to(request), Proto.to(meta.build()));
+        if (deadline != Meta.NO_DEADLINE) meta.deadline(deadline);
+        return Proto.toPayload(Proto.toBuf(request), () -> meta.build().encode());
     }
 
     public static Request parseRequest(Payload p) {
         try {
-            return Proto.from(ByteBufUtil.getBytes(p.sliceData()), Request.class);
+            return Proto.from(p.sliceData(), Request.class);
         } finally {
             p.release();
         }
@@ -61,9 +67,7 @@ class Request {
     public static Payload updateMeta(Payload p, Meta meta, @Nullable String name) {
         if (name != null) meta.addTrace(name);
         try {
-            return DefaultPayload.create(
-                p.sliceData().nioBuffer(),
-                ByteBuffer.wrap(Proto.to(meta)));
+            return Proto.toPayload(p.data().retainedSlice(), meta::encode);
         } finally {
             p.release();
         }
@@ -71,7 +75,25 @@ class Request {
 
     @Override
     public String toString() {
-        return "REQUEST@" + timestamp + '{' + Arrays.toString(arguments) + '}';
+        return "REQUEST" + '{' + Arrays.toString(arguments) + '}';
+    }
+
+    /**
+     * @return encoded arguments, equal arguments have equal bytes
+     */
+    static byte[] encodeArguments(Object[] arguments) {
+        return Proto.to(Request.builder().arguments(proc(arguments)).build());
+    }
+
+    /**
+     * reverse of {@link #proc(Object[])}
+     */
+    static Object[] restore(Object[] arguments) {
+        if (arguments == null || arguments.length == 0) return arguments;
+        return Seq.of(arguments).map(x ->
+            x instanceof NULL ? null :
+                Rpc.autoDelegate.get() ? MimicUtil.autoDisguise(x) : x
+        ).toArray();
     }
 
     static Object[] proc(Object[] arguments) {
@@ -2,13 +2,17 @@ package cn.zenliu.java.rs.rpc.core;
 
 import cn.zenliu.java.rs.rpc.api.Result;
 import cn.zenliu.java.rs.rpc.api.Tick;
-import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import io.rsocket.Payload;
-import io.rsocket.util.DefaultPayload;
+import io.rsocket.util.ByteBufPayload;
 import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import mimic.MimicUtil;
+import org.jooq.lambda.Seq;
+
+import java.util.Collections;
+import java.util.List;
 
 /**
  * RPC Response
@@ -29,36 +33,76 @@ final class Response {
     final Result<Object> response;
 
     @Getter final Object element;
+    /**
+     * elements of a batch frame, null if the frame carries a single element
+     */
+    final List<Object> elements;
+
+    /**
+     * a batch of stream elements, to be sent in one frame
+     */
+    static final class Batch {
+        final List<Object> elements;
+
+        Batch(List<Object> elements) {
+            this.elements = elements;
+        }
+    }
+
+    /**
+     * element frames are not ticked, the first one has a meta with tick
+     */
+    static Response element(Object result) {
+        final ResponseBuilder builder = Response.builder().tick(0);
+        if (result instanceof Batch) {
+            final List<Object> elements = ((Batch) result).elements;
+            return builder.elements(Rpc.autoDelegate.get() ? Seq.seq(elements).map(MimicUtil::autoMimic).toList() : elements).build();
+        }
+        return builder.element(Rpc.autoDelegate.get() ? MimicUtil.autoMimic(result) : result).build();
+    }
 
     public Result<Object> getResponse() {
         return Rpc.autoDelegate.get() ? response.map(MimicUtil::autoDisguise) : response;
     }
 
     public static Payload build(Meta meta, String name, Result<Object> result) {
-        return DefaultPayload.create(Proto.to(Response.builder().response(
+        return Proto.toPayload(Proto.toBuf(Response.builder().response(
             Rpc.autoDelegate.get() ? result.map(MimicUtil::autoMimic) : result
-        ).build()), Proto.to(name != null ? meta.addTrace(name) : meta));
+        ).build()), () -> (name != null ? meta.addTrace(name) : meta).encode());
+    }
+
+    /**
+     * @param data encoded response, see {@link #encode(Result)}
+     */
+    public static Payload build(Meta meta, String name, byte[] data) {
+        return ByteBufPayload.create(Unpooled.wrappedBuffer(data), (name != null ? meta.addTrace(name) : meta).encode());
+    }
+
+    public static byte[] encode(Result<Object> result) {
+        return Proto.to(Response.builder().response(Rpc.autoDelegate.get() ? result.map(MimicUtil::autoMimic) : result).build());
     }
 
+    /**
+     * @param result a element or a {@link Batch}
+     */
     public static Payload buildFirstElement(Meta meta, String name, Object result) {
-        return DefaultPayload.create(Proto.to(Response.builder().element(
-            Rpc.autoDelegate.get() ? MimicUtil.autoMimic(result) : result
-        ).build()), Proto.to(name != null ? meta.addTrace(name) : meta));
+        return Proto.toPayload(Proto.toBuf(element(result)), () -> (name != null ? meta.addTrace(name) : meta).encode());
     }
 
+    /**
+     * @param result a element or a {@link Batch}
+     */
     public static Payload buildElement(Object result) {
-        return DefaultPayload.create(Proto.to(Response.builder().element(
-            Rpc.autoDelegate.get() ? MimicUtil.autoMimic(result) : result
-        ).build()));
+        return ByteBufPayload.create(Proto.toBuf(element(result)));
     }
 
     public static Meta parseMeta(Payload p) {
-        return Proto.from(ByteBufUtil.getBytes(p.sliceMetadata()), Meta.class);
+        return Meta.decode(p.sliceMetadata());
     }
 
     public static Response parse(Payload p) {
         try {
-            return Proto.from(ByteBufUtil.getBytes(p.sliceData()), Response.class);
+            return Proto.from(p.sliceData(), Response.class);
         } finally {
             p.release();
         }
@@ -66,7 +110,19 @@ final class Response {
 
     public static Object parseElement(Payload p) {
         try {
-            return Proto.from(ByteBufUtil.getBytes(p.sliceData()), Response.class).getElement();
+            return Proto.from(p.sliceData(), Response.class).getElement();
+        } finally {
+            p.release();
+        }
+    }
+
+    /**
+     * @return elements of a batch frame or the single element of a frame
+     */
+    public static List<Object> parseElements(Payload p) {
+        try {
+            final Response response = Proto.from(p.sliceData(), Response.class);
+            return response.elements != null ? response.elements : Collections.singletonList(response.element);
         } finally {
             p.release();
         }
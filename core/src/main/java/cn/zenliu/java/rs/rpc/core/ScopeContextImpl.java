@@ -1,13 +1,16 @@
 package cn.zenliu.java.rs.rpc.core;
 
 import cn.zenliu.java.mimic.api.MimicApi;
+import cn.zenliu.java.rs.rpc.api.ClientOptions;
 import cn.zenliu.java.rs.rpc.api.Result;
 import lombok.Getter;
 import mimic.ConcurrentReferenceHashMap;
 import org.jetbrains.annotations.Nullable;
+import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
 import java.lang.ref.WeakReference;
@@ -18,10 +21,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -66,7 +69,6 @@ abstract class ScopeContextImpl implements ContextScope, ContextServers, Context
         this.name = name;
         this.route = route;
         purifyList.add(new WeakReference<>(proxies));
-        purifyList.add(new WeakReference<>(services));
     }
 
 
@@ -162,30 +164,42 @@ abstract class ScopeContextImpl implements ContextScope, ContextServers, Context
      */
     @Getter final Map<String, Disposable> servers = new ConcurrentHashMap<>();
     /**
-     * local registered service domain
+     * local registered service domain, held until released: an entry dropped by GC would drop its routes
      */
-    @Getter final ConcurrentReferenceHashMap<Class<?>, WeakReference<Object>> services = MimicApi.buildWeakConcurrentCache();
+    @Getter final ConcurrentHashMap<Class<?>, WeakReference<Object>> services = new ConcurrentHashMap<>();
     /**
      * local Proxy Services
      */
-    @Getter final ConcurrentReferenceHashMap<Class<?>, WeakReference<Object>> proxies = MimicApi.buildWeakConcurrentCache();
+    @Getter final ConcurrentReferenceHashMap<Tuple2<Class<?>, ClientOptions>, WeakReference<Object>> proxies = MimicApi.buildWeakConcurrentCache();
     /**
      * local registered handler
      */
-    @Getter final Map<Integer, Function<Object[], Result<Object>>> handlers = new ConcurrentSkipListMap<>();
-    @Getter final Map<Integer, Function<Object[], Flux<Object>>> streamHandlers = new ConcurrentSkipListMap<>();
-    @Getter final UniqueList signs = UniqueList.of(new CopyOnWriteArrayList<>());
+    @Getter final Registry<Function<Object[], Mono<Result<Object>>>> handlers = Registry.of();
+    @Getter final Registry<Function<Object[], Flux<Object>>> streamHandlers = Registry.of();
+    @Getter final Registry<BiFunction<Object[], Flux<Object>, Flux<Object>>> channelHandlers = Registry.of();
+    /**
+     * execution bulkheads of services
+     */
+    @Getter final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    /**
+     * result caches of client methods, by sign
+     */
+    @Getter final Map<String, LruCache<LruCache.Key, Result<Object>>> clientCaches = new ConcurrentHashMap<>();
+    /**
+     * memoized responses of pure service methods, by sign
+     */
+    @Getter final Map<String, LruCache<LruCache.Key, byte[]>> memos = new ConcurrentHashMap<>();
 
 
     /**
      * remotes domain registry
      */
-    @Getter final Map<Integer, ConcurrentSkipListSet<Remote>> remoteServices = new ConcurrentSkipListMap<>();
-
+    @Getter final Registry<RemoteGroup> remoteServices = Registry.withAlias(x -> x.endsWith(ROUTE_MARK + "") ? ContextRoutes.deRouteMark(x) : null);
     /**
-     * store all Service Domain
+     * load balancer of scope and domains
      */
-    @Getter final UniqueList domains = UniqueList.of(new CopyOnWriteArrayList<>());
+    @Getter final AtomicReference<LoadBalancer> loadBalancer = new AtomicReference<>(LoadBalancer.roundRobin());
+    @Getter final Map<String, LoadBalancer> domainBalancers = new ConcurrentHashMap<>();
     /**
      * store remote RSocket
      */
@@ -203,7 +217,12 @@ abstract class ScopeContextImpl implements ContextScope, ContextServers, Context
     protected void purify() {
         services.clear();
         handlers.clear();
-        signs.clear();
+        streamHandlers.clear();
+        channelHandlers.clear();
+        bulkheads.values().forEach(Bulkhead::dispose);
+        bulkheads.clear();
+        clientCaches.clear();
+        memos.clear();
 
         servers.forEach((k, v) -> {
             if (!v.isDisposed()) v.dispose();
@@ -214,12 +233,11 @@ abstract class ScopeContextImpl implements ContextScope, ContextServers, Context
         });
         remotes.clear();
         remoteNames.clear();
-        domains.clear();
         remoteServices.clear();
         routes.get().clear();
     }
 
     protected String dump() {
-        return String.valueOf(domains);
+        return String.valueOf(remoteServices.keys());
     }
 }
@@ -1,7 +1,10 @@
 package cn.zenliu.java.rs.rpc.core;
 
+import cn.zenliu.java.rs.rpc.api.Batch;
+import cn.zenliu.java.rs.rpc.api.ClientOptions;
 import cn.zenliu.java.rs.rpc.api.Config;
 import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.api.ServiceOptions;
 import cn.zenliu.java.rs.rpc.core.ProxyUtil.ClientCreator;
 import cn.zenliu.java.rs.rpc.core.ProxyUtil.ServiceRegister;
 import io.netty.buffer.ByteBufUtil;
@@ -13,8 +16,11 @@ import lombok.Builder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
 import java.io.Serializable;
@@ -80,6 +86,25 @@ public final class ScopeImpl extends ScopeContextImpl implements Scope, Serializ
         this.trace.set(trace);
     }
 
+    /**
+     * set load balancer of this scope, default is {@link LoadBalancer#roundRobin()}
+     *
+     * @param balancer the balancer, null to reset to default
+     */
+    public void setLoadBalancer(@Nullable LoadBalancer balancer) {
+        this.loadBalancer.set(balancer == null ? LoadBalancer.roundRobin() : balancer);
+    }
+
+    /**
+     * set load balancer of a service domain (the service class canonical name)
+     *
+     * @param domain   the domain
+     * @param balancer the balancer, null to use the scope one
+     */
+    public void setLoadBalancer(String domain, @Nullable LoadBalancer balancer) {
+        setDomainBalancer(domain, balancer);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -106,7 +131,7 @@ public final class ScopeImpl extends ScopeContextImpl implements Scope, Serializ
                     if (debug.get()) {
                         log.debug("remote connect to client [{}]", name);
                     }
-                    final ServiceRSocket rSocket = new ServiceRSocket(name, remote, false);
+                    final ServiceRSocket rSocket = new ServiceRSocket(name, remote, false, config.getMode() == 2 ? Schedulers.parallel() : null);
                     remote.setServer(rSocket);
                     processRemoteUpdate(remote, null, false);
                     return Mono.just(rSocket);
@@ -138,7 +163,7 @@ public final class ScopeImpl extends ScopeContextImpl implements Scope, Serializ
             throw new IllegalStateException("a service or client with name is already exists ! name is " + name);
         final Supplier<Mono<? extends Closeable>> serverSupplier = RSocketUtil.buildServer((setup, sending) -> {
             //current setup from client is support resume or not
-            Boolean resume = Proto.from(ByteBufUtil.getBytes(setup.sliceData()), Boolean.class);
+            Boolean resume = Proto.from(setup.sliceData(), Boolean.class);
             final Remote remote = Remote.builder()
                 .idx(-getRemoteNames().size())
                 .name("UNK")
@@ -146,7 +171,7 @@ public final class ScopeImpl extends ScopeContextImpl implements Scope, Serializ
                 .resume(resume)
                 .build();
             log.debug("remote connect to server [{}]", name);
-            final ServiceRSocket rSocket = new ServiceRSocket(name, remote, true);
+            final ServiceRSocket rSocket = new ServiceRSocket(name, remote, true, config.getMode() == 2 ? Schedulers.parallel() : null);
             remote.setServer(rSocket);
             processRemoteUpdate(remote, null, false);
             return Mono.just(rSocket);
@@ -163,7 +188,48 @@ public final class ScopeImpl extends ScopeContextImpl implements Scope, Serializ
     @SuppressWarnings("unchecked")
     @Override
     public <T> T createClientService(Class<T> clientKlass, @Nullable Map<String, Function<Object[], Object[]>> argumentProcessor, boolean useFNF) {
-        return (T) clientCreator.create(clientKlass, argumentProcessor, useFNF);
+        return (T) clientCreator.create(clientKlass, argumentProcessor, useFNF, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T createClientService(Class<T> clientKlass, @Nullable Map<String, Function<Object[], Object[]>> argumentProcessor, boolean useFNF, @Nullable ClientOptions options) {
+        return (T) clientCreator.create(clientKlass, argumentProcessor, useFNF, options);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Batch batch() {
+        return new BatchImpl(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidateCache(Class<?> serviceKlass, @Nullable String method) {
+        invalidateClientCaches(ProxyUtil.signPrefix(serviceKlass, method));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidateMemo(Class<?> serviceKlass, @Nullable String method) {
+        invalidateMemos(ProxyUtil.signPrefix(serviceKlass, method));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void pushCacheInvalidation(Class<?> serviceKlass, @Nullable String method) {
+        pushInvalidation(Collections.singleton(ProxyUtil.signPrefix(serviceKlass, method)), null);
     }
 
     /**
@@ -171,7 +237,15 @@ public final class ScopeImpl extends ScopeContextImpl implements Scope, Serializ
      */
     @Override
     public <T> void registerService(T service, Class<T> serviceKlass, @Nullable Map<String, Function<Object, Object>> resultProcessor) {
-        serviceRegister.register(service, serviceKlass, resultProcessor);
+        serviceRegister.register(service, serviceKlass, resultProcessor, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> void registerService(T service, Class<T> serviceKlass, @Nullable Map<String, Function<Object, Object>> resultProcessor, @Nullable ServiceOptions options) {
+        serviceRegister.register(service, serviceKlass, resultProcessor, options);
     }
 
 
@@ -195,40 +269,61 @@ public final class ScopeImpl extends ScopeContextImpl implements Scope, Serializ
         public final AtomicReference<Remote> remoteRef = new AtomicReference<>();
         public final String server;
         public final boolean serverMode;
+        /**
+         * scheduler stands for the IO thread of a transport without one (LOCAL), so handlers never run on the thread of caller
+         */
+        final @Nullable Scheduler loop;
 
-        ServiceRSocket(String server, Remote remote, boolean mode) {
+        ServiceRSocket(String server, Remote remote, boolean mode, @Nullable Scheduler loop) {
             this.server = server;
             this.serverMode = mode;
+            this.loop = loop;
             this.remoteRef.set(remote);
         }
 
+        private <T> Mono<T> onLoop(Supplier<Mono<T>> handle) {
+            return loop == null ? handle.get() : Mono.defer(handle).subscribeOn(loop);
+        }
+
+        private <T> Flux<T> onLoopMany(Supplier<Flux<T>> handle) {
+            return loop == null ? handle.get() : Flux.defer(handle).subscribeOn(loop);
+        }
+
         @Override
         public @NotNull Mono<Void> fireAndForget(@NotNull Payload payload) {
-            onDebug("{} on FireAndForget {} ", server, dump(remoteRef.get(), payload));
-            return FunctorPayload.fnfHandler(payload, remoteRef.get(), ScopeImpl.this::onServMeta, ScopeImpl.this::onFNF);
+            onDebug("{} on FireAndForget {} ", () -> new Object[]{server, dump(remoteRef.get(), payload)});
+            return onLoop(() -> FunctorPayload.fnfHandler(payload, remoteRef.get(), ScopeImpl.this::onServMeta, ScopeImpl.this::onFNF));
         }
 
         @Override
         public @NotNull Mono<Payload> requestResponse(@NotNull Payload payload) {
-            onDebug("{} on RequestResponse {}", server, dump(remoteRef.get(), payload));
-            return FunctorPayload.rrHandler(payload, remoteRef.get(), ScopeImpl.this::onRR);
+            onDebug("{} on RequestResponse {}", () -> new Object[]{server, dump(remoteRef.get(), payload)});
+            return onLoop(() -> FunctorPayload.rrHandler(payload, remoteRef.get(), ScopeImpl.this::onRR));
         }
 
         @Override
         public @NotNull Flux<Payload> requestStream(@NotNull Payload payload) {
-            onDebug("{} on RequestStream {}", server, dump(remoteRef.get(), payload));
-            return FunctorPayload.rsHandler(payload, remoteRef.get(), ScopeImpl.this::onRS);
+            onDebug("{} on RequestStream {}", () -> new Object[]{server, dump(remoteRef.get(), payload)});
+            return onLoopMany(() -> FunctorPayload.rsHandler(payload, remoteRef.get(), ScopeImpl.this::onRS));
+        }
+
+        @Override
+        public @NotNull Flux<Payload> requestChannel(@NotNull Publisher<Payload> payloads) {
+            onDebug("{} on RequestChannel {}", () -> new Object[]{server, remoteRef.get()});
+            return onLoopMany(() -> FunctorPayload.rcHandler(payloads, remoteRef.get(), ScopeImpl.this::onRC));
         }
 
         @Override
         public @NotNull Mono<Void> metadataPush(@NotNull Payload payload) {
-            onDebug("{} on MetadataPush {}", server, dump(remoteRef.get(), payload));
+            onDebug("{} on MetadataPush {}", () -> new Object[]{server, dump(remoteRef.get(), payload)});
             return FunctorPayload.metaPushHandler(payload, remoteRef.get(), ScopeImpl.this::onServMeta);
         }
 
         public void removeRegistry() {
             remotes.remove(remoteRef.get().getIdx());
-            remoteServices.forEach((k, v) -> v.remove(remoteRef.get()));
+            remoteServices.forEach((k, v) -> {
+                if (v != null) v.remove(remoteRef.get());
+            });
         }
 
         @Override
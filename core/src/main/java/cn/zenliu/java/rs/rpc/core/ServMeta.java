@@ -5,10 +5,7 @@ import lombok.ToString;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * @author Zen.Liu
@@ -28,6 +25,14 @@ public class ServMeta implements Serializable {
      */
     @Builder.Default final @Nullable List<String> service = new ArrayList<>();
     @Builder.Default final @Nullable Set<String> known = new HashSet<>();
+    /**
+     * local handler signs with compact id, remote could call with id instead of sign
+     */
+    @Builder.Default final @Nullable Map<String, Integer> signs = new HashMap<>();
+    /**
+     * sign prefixes of client cached results to invalidate. a meta with it is only a invalidation
+     */
+    final @Nullable Set<String> evict;
 
     public boolean isKnown(Set<String> routes) {
         return (routes.isEmpty() && (known == null || known.isEmpty()))
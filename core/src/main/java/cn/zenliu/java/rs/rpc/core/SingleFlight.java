@@ -0,0 +1,61 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import cn.zenliu.java.rs.rpc.api.Result;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Coalesce concurrent calls of a method with equal arguments into one in-flight call, all callers get the same result.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-31
+ */
+final class SingleFlight {
+    final Function<Object[], Mono<Result<Object>>> call;
+    final Map<Key, Mono<Result<Object>>> inflight = new ConcurrentHashMap<>();
+
+    SingleFlight(Function<Object[], Mono<Result<Object>>> call) {
+        this.call = call;
+    }
+
+    static final class Key {
+        final Object[] args;
+        final int hash;
+
+        Key(Object[] args) {
+            this.args = args;
+            this.hash = Arrays.deepHashCode(args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Key && hash == ((Key) o).hash && Arrays.deepEquals(args, ((Key) o).args);
+        }
+    }
+
+    Mono<Result<Object>> call(Object[] args) {
+        final Key key = new Key(args);
+        return inflight.computeIfAbsent(key, k -> {
+            final Mono<Result<Object>>[] self = newHolder();
+            self[0] = Mono.defer(() -> call.apply(args))
+                .doFinally(s -> inflight.remove(k, self[0]))
+                .cache();
+            return self[0];
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Mono<Result<Object>>[] newHolder() {
+        return new Mono[1];
+    }
+}
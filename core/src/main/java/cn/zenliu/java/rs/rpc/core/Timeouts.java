@@ -0,0 +1,60 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.jetbrains.annotations.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reactive timeouts scheduled on a shared timer wheel.<br>
+ * A fired timeout cancels the source, which sends a CANCEL frame to the remote for a in-flight request.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-30
+ */
+public interface Timeouts {
+    HashedWheelTimer TIMER = new HashedWheelTimer(new DefaultThreadFactory("rpc-timeout", true), 5, TimeUnit.MILLISECONDS, 1024);
+
+    /**
+     * @param timeout null or non positive for none
+     * @return deadline in {@link System#nanoTime()} or {@link Meta#NO_DEADLINE}
+     */
+    static long deadlineOf(@Nullable Duration timeout) {
+        if (timeout == null || timeout.isZero() || timeout.isNegative()) return Meta.NO_DEADLINE;
+        return System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * @return a Mono emits 0 after the delay, cancel of it cancels the timer task
+     */
+    static Mono<Long> after(Duration delay) {
+        return Mono.create(sink -> {
+            final Timeout timeout = TIMER.newTimeout(t -> sink.success(0L), delay.toNanos(), TimeUnit.NANOSECONDS);
+            sink.onCancel(timeout::cancel);
+        });
+    }
+
+    /**
+     * @param timeout null or non positive for no timeout
+     */
+    static <T> Mono<T> timeout(Mono<T> source, @Nullable Duration timeout) {
+        if (timeout == null || timeout.isZero() || timeout.isNegative()) return source;
+        return source.timeout(after(timeout));
+    }
+
+    /**
+     * timeout for first element of a stream, later elements are not bounded
+     *
+     * @param timeout null or non positive for no timeout
+     */
+    static <T> Flux<T> timeoutFirst(Flux<T> source, @Nullable Duration timeout) {
+        if (timeout == null || timeout.isZero() || timeout.isNegative()) return source;
+        return source.timeout(after(timeout), x -> Mono.never());
+    }
+}
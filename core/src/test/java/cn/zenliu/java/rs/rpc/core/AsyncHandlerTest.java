@@ -0,0 +1,97 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import cn.zenliu.java.rs.rpc.api.Result;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncHandlerTest {
+    public interface Lazy {
+        Mono<String> mono(String s);
+
+        String plain(String s);
+
+        Mono<String> fail(String s);
+    }
+
+    static final AtomicInteger invoked = new AtomicInteger();
+
+    public static class LazyImpl implements Lazy {
+        @Override
+        public Mono<String> mono(String s) {
+            invoked.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(100)).map(x -> "mono:" + s);
+        }
+
+        @Override
+        public String plain(String s) {
+            return s;
+        }
+
+        @Override
+        public Mono<String> fail(String s) {
+            return Mono.error(new IllegalStateException(s));
+        }
+    }
+
+    static ScopeImpl scope;
+
+    @BeforeAll
+    static void start() {
+        scope = (ScopeImpl) Rpc.newScope("asyncHandler", false);
+        scope.registerService(new LazyImpl(), Lazy.class, null);
+    }
+
+    @AfterAll
+    static void stop() {
+        scope.release();
+    }
+
+    static Function<Object[], Mono<Result<Object>>> handler(String name) throws NoSuchMethodException {
+        final Function<Object[], Mono<Result<Object>>> handler = scope.findHandler(ProxyUtil.signature(Lazy.class.getMethod(name, String.class), Lazy.class));
+        assertNotNull(handler, name);
+        return handler;
+    }
+
+    @Test
+    void asyncHandlerDoesNotBlock() throws Exception {
+        final Function<Object[], Mono<Result<Object>>> mono = handler("mono");
+        final long start = System.nanoTime();
+        final Mono<Result<Object>> result = mono.apply(new Object[]{"a"});
+        //the service is invoked, but its result is not waited
+        assertTrue(System.nanoTime() - start < Duration.ofMillis(100).toNanos());
+        assertEquals(1, invoked.get());
+        assertEquals("mono:a", result.block(Duration.ofSeconds(1)).getResult());
+    }
+
+    @Test
+    void allReturnsAreAdapted() throws Exception {
+        assertEquals("a", handler("plain").apply(new Object[]{"a"}).block().getResult());
+        final Result<Object> failed = handler("fail").apply(new Object[]{"broken"}).block();
+        assertTrue(failed.hasError());
+        assertEquals("broken", failed.getError().getMessage());
+    }
+
+    @Test
+    void duplicatedSignIsRejected() throws Exception {
+        final String sign = ProxyUtil.signature(Lazy.class.getMethod("plain", String.class), Lazy.class);
+        assertThrows(IllegalStateException.class, () -> scope.addAsyncHandler(sign, args -> Mono.just(Result.ok(null))));
+        assertThrows(IllegalStateException.class, () -> scope.addHandler(sign, args -> Result.ok(null)));
+    }
+
+    @Test
+    void nullResultOfSyncHandlerIsEmptyResult() {
+        scope.addHandler("asyncHandler#nullResult", args -> null);
+        final Result<Object> result = scope.findHandler("asyncHandler#nullResult").apply(new Object[0]).block();
+        assertNotNull(result);
+        assertFalse(result.hasError());
+        assertNull(result.getResult());
+    }
+}
@@ -0,0 +1,75 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import cn.zenliu.java.rs.rpc.api.ServiceOptions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+    static ServiceOptions dedicated(int queueLimit) {
+        return ServiceOptions.builder().execution(ServiceOptions.Execution.DEDICATED).threads(1).queueLimit(queueLimit).build();
+    }
+
+    /**
+     * a slot is released after the result is delivered
+     */
+    static void awaitReleased(Bulkhead bulkhead) throws InterruptedException {
+        for (int i = 0; i < 250 && bulkhead.getPending() > 0; i++) Thread.sleep(20);
+        assertEquals(0, bulkhead.getPending());
+    }
+
+    @Test
+    void eventLoopHasNoBulkhead() {
+        assertNull(Bulkhead.of("eventLoop", ServiceOptions.DEFAULT));
+    }
+
+    @Test
+    void rejectOverQueueLimit() throws Exception {
+        final Bulkhead bulkhead = Bulkhead.of("rejectOverQueueLimit", dedicated(1));
+        assertNotNull(bulkhead);
+        try {
+            final CountDownLatch running = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final Mono<String> blocked = bulkhead.mono(() -> Mono.fromCallable(() -> {
+                running.countDown();
+                release.await();
+                return Thread.currentThread().getName();
+            }));
+            final CompletableFuture<String> first = blocked.toFuture();
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            assertEquals(1, bulkhead.getPending());
+            final RejectedExecutionException ex = assertThrows(RejectedExecutionException.class, () -> bulkhead.mono(() -> Mono.just("b")).block());
+            assertTrue(ex.getMessage().contains("rejectOverQueueLimit"), ex::getMessage);
+            assertThrows(RejectedExecutionException.class, () -> bulkhead.flux(() -> Flux.just("c")).blockLast());
+            assertEquals(2, bulkhead.getRejected());
+            release.countDown();
+            //calls run on the dedicated executor of the bulkhead
+            assertTrue(first.get(5, TimeUnit.SECONDS).startsWith("rpc-rejectOverQueueLimit-"));
+            awaitReleased(bulkhead);
+            assertEquals("d", bulkhead.mono(() -> Mono.just("d")).block(Duration.ofSeconds(5)));
+            assertEquals(2, bulkhead.getExecuted());
+        } finally {
+            bulkhead.dispose();
+        }
+    }
+
+    @Test
+    void failedCallReleasesSlot() throws InterruptedException {
+        final Bulkhead bulkhead = Bulkhead.of("failedCallReleasesSlot", dedicated(1));
+        try {
+            assertThrows(IllegalStateException.class, () -> bulkhead.mono(() -> Mono.error(new IllegalStateException())).block());
+            awaitReleased(bulkhead);
+            assertEquals("a", bulkhead.mono(() -> Mono.just("a")).block(Duration.ofSeconds(5)));
+        } finally {
+            bulkhead.dispose();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.MethodHandle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvokerTest {
+    public interface Calc {
+        int add(int a, int b);
+
+        String none();
+
+        void nothing();
+
+        void fail(String message);
+    }
+
+    public static class CalcImpl implements Calc {
+        @Override
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        @Override
+        public String none() {
+            return "none";
+        }
+
+        @Override
+        public void nothing() {
+        }
+
+        @Override
+        public void fail(String message) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    @Test
+    void invokeBoundAndSpread() throws Throwable {
+        final MethodHandle add = ProxyUtil.invokerOf(new CalcImpl(), Calc.class.getMethod("add", int.class, int.class), null);
+        assertEquals(ProxyUtil.INVOKER_TYPE, add.type());
+        assertEquals(3, (Object) add.invokeExact(new Object[]{1, 2}));
+        final MethodHandle none = ProxyUtil.invokerOf(new CalcImpl(), Calc.class.getMethod("none"), null);
+        assertEquals("none", (Object) none.invokeExact(new Object[0]));
+        final MethodHandle nothing = ProxyUtil.invokerOf(new CalcImpl(), Calc.class.getMethod("nothing"), null);
+        assertNull((Object) nothing.invokeExact(new Object[0]));
+    }
+
+    @Test
+    void processResult() throws Throwable {
+        final MethodHandle add = ProxyUtil.invokerOf(new CalcImpl(), Calc.class.getMethod("add", int.class, int.class), x -> "sum:" + x);
+        assertEquals("sum:3", (Object) add.invokeExact(new Object[]{1, 2}));
+    }
+
+    @Test
+    void throwOriginalException() throws Throwable {
+        final MethodHandle fail = ProxyUtil.invokerOf(new CalcImpl(), Calc.class.getMethod("fail", String.class), null);
+        final IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> {
+            final Object ignore = fail.invokeExact(new Object[]{"broken"});
+        });
+        assertEquals("broken", ex.getMessage());
+    }
+
+    @Test
+    void rejectWrongArity() throws Throwable {
+        final MethodHandle add = ProxyUtil.invokerOf(new CalcImpl(), Calc.class.getMethod("add", int.class, int.class), null);
+        assertThrows(IllegalArgumentException.class, () -> {
+            final Object ignore = add.invokeExact(new Object[]{1});
+        });
+    }
+}
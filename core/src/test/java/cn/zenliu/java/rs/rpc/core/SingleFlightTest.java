@@ -0,0 +1,72 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import cn.zenliu.java.rs.rpc.api.Result;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    @Test
+    void equalArgumentsShareOneCall() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Sinks.One<Result<Object>> remote = Sinks.one();
+        final SingleFlight flight = new SingleFlight(args -> {
+            calls.incrementAndGet();
+            return remote.asMono();
+        });
+        final Mono<Result<Object>> first = flight.call(new Object[]{"a", new int[]{1}});
+        final Mono<Result<Object>> second = flight.call(new Object[]{"a", new int[]{1}});
+        assertSame(first, second);
+        first.subscribe();
+        second.subscribe();
+        assertEquals(1, calls.get());
+        assertEquals(1, flight.inflight.size());
+        remote.tryEmitValue(Result.ok("done"));
+        assertEquals("done", first.block(Duration.ofSeconds(1)).getResult());
+        assertEquals("done", second.block(Duration.ofSeconds(1)).getResult());
+        //completed calls are not kept
+        assertTrue(flight.inflight.isEmpty());
+        flight.call(new Object[]{"a", new int[]{1}}).block(Duration.ofSeconds(1));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void differentArgumentsAreSeparated() {
+        final AtomicInteger calls = new AtomicInteger();
+        final SingleFlight flight = new SingleFlight(args -> {
+            calls.incrementAndGet();
+            return Mono.just(Result.ok(args[0])).delayElement(Duration.ofMillis(50));
+        });
+        final Mono<Result<Object>> a = flight.call(new Object[]{"a"});
+        final Mono<Result<Object>> b = flight.call(new Object[]{"b"});
+        assertNotSame(a, b);
+        assertEquals("a", a.block(Duration.ofSeconds(1)).getResult());
+        assertEquals("b", b.block(Duration.ofSeconds(1)).getResult());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void failureIsSharedAndNotKept() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Sinks.One<Result<Object>> remote = Sinks.one();
+        final SingleFlight flight = new SingleFlight(args -> {
+            calls.incrementAndGet();
+            return remote.asMono();
+        });
+        final Mono<Result<Object>> first = flight.call(new Object[]{"a"});
+        final Mono<Result<Object>> second = flight.call(new Object[]{"a"});
+        first.subscribe(x -> {
+        }, e -> {
+        });
+        remote.tryEmitError(new IllegalStateException("broken"));
+        assertThrows(IllegalStateException.class, () -> first.block(Duration.ofSeconds(1)));
+        assertThrows(IllegalStateException.class, () -> second.block(Duration.ofSeconds(1)));
+        assertEquals(1, calls.get());
+        assertTrue(flight.inflight.isEmpty());
+    }
+}
@@ -0,0 +1,108 @@
+package cn.zenliu.java.rs.rpc.core;
+
+import cn.zenliu.java.rs.rpc.api.ClientOptions;
+import cn.zenliu.java.rs.rpc.api.ServiceOptions;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamBatchTest {
+    static List<Integer> sizes(List<Object> batches) {
+        return batches.stream().map(x -> ((Response.Batch) x).elements.size()).collect(Collectors.toList());
+    }
+
+    @Test
+    void batchBySize() {
+        final List<Object> batches = ProxyUtil.batch(Flux.range(0, 7).cast(Object.class), ServiceOptions.builder().batchSize(3).build())
+            .collectList().block();
+        assertEquals(Arrays.asList(3, 3, 1), sizes(batches));
+    }
+
+    @Test
+    void batchByWindow() {
+        final ServiceOptions options = ServiceOptions.builder().batchSize(100).batchWindow(Duration.ofMillis(50)).build();
+        final Flux<Object> slow = Flux.concat(Flux.range(0, 2), Flux.range(2, 2).delaySubscription(Duration.ofMillis(200))).cast(Object.class);
+        //a partial batch is sent when the window elapsed
+        assertEquals(Arrays.asList(2, 2), sizes(ProxyUtil.batch(slow, options).collectList().block(Duration.ofSeconds(5))));
+    }
+
+    static class Slow extends BaseSubscriber<Object> {
+        final List<Object> batches = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+        }
+
+        @Override
+        protected void hookOnNext(Object value) {
+            batches.add(value);
+        }
+    }
+
+    @Test
+    void windowRespectsDemand() {
+        final List<Long> requests = new CopyOnWriteArrayList<>();
+        final ServiceOptions options = ServiceOptions.builder().batchSize(10).batchWindow(Duration.ofMillis(20)).build();
+        final Slow slow = new Slow();
+        ProxyUtil.batch(Flux.range(0, 1000).doOnRequest(requests::add).cast(Object.class), options).subscribe(slow);
+        //at most one batch is requested ahead of demand
+        assertTrue(requests.stream().mapToLong(x -> x).sum() <= 10, requests::toString);
+        slow.request(1);
+        assertEquals(Collections.singletonList(10), sizes(slow.batches));
+        assertTrue(requests.stream().mapToLong(x -> x).sum() <= 20, requests::toString);
+        slow.request(2);
+        assertEquals(Arrays.asList(10, 10, 10), sizes(slow.batches));
+        assertTrue(requests.stream().mapToLong(x -> x).sum() <= 40, requests::toString);
+        slow.dispose();
+    }
+
+    @Test
+    void windowHeldUntilRequested() throws InterruptedException {
+        final ServiceOptions options = ServiceOptions.builder().batchSize(10).batchWindow(Duration.ofMillis(20)).build();
+        final Slow slow = new Slow();
+        ProxyUtil.batch(Flux.just(1, 2, 3).concatWith(Flux.never()).cast(Object.class), options).subscribe(slow);
+        //window elapsed without demand
+        Thread.sleep(100);
+        assertTrue(slow.batches.isEmpty());
+        slow.request(1);
+        assertEquals(Collections.singletonList(3), sizes(slow.batches));
+        assertFalse(slow.isDisposed());
+        slow.dispose();
+    }
+
+    @Test
+    void batchFrameRoundTrip() {
+        assertEquals(Arrays.asList(1, 2, 3), Response.parseElements(Response.buildElement(new Response.Batch(Arrays.asList(1, 2, 3)))));
+        assertEquals(Collections.singletonList("a"), Response.parseElements(Response.buildElement("a")));
+    }
+
+    @Test
+    void limitDemand() {
+        final List<Long> requests = new ArrayList<>();
+        final List<Integer> elements = ContextScope.limitRate(Flux.range(0, 100).doOnRequest(requests::add), 10).collectList().block();
+        assertEquals(100, elements.size());
+        assertTrue(requests.stream().allMatch(n -> n <= 10), requests::toString);
+        requests.clear();
+        ContextScope.limitRate(Flux.range(0, 100).doOnRequest(requests::add), 0).blockLast();
+        assertEquals(Collections.singletonList(Long.MAX_VALUE), requests);
+    }
+
+    @Test
+    void prefetchOfMethod() {
+        final ClientOptions options = ClientOptions.builder().prefetch(32).prefetch("range", 4).build();
+        assertEquals(4, options.prefetchOf("range"));
+        assertEquals(32, options.prefetchOf("other"));
+        assertEquals(0, ClientOptions.DEFAULT.prefetchOf("range"));
+    }
+}
@@ -0,0 +1,68 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.core.Rpc;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncReturnTest {
+    public interface Absent {
+        CompletableFuture<String> future(String s);
+
+        CompletionStage<String> stage(String s);
+
+        Mono<String> mono(String s);
+
+        String plain(String s);
+    }
+
+    public interface Processed {
+        CompletableFuture<String> future(String s);
+    }
+
+    static Scope scope;
+
+    @BeforeAll
+    static void start() {
+        scope = Rpc.newScope("asyncReturn", false);
+    }
+
+    @AfterAll
+    static void stop() {
+        scope.release();
+    }
+
+    @Test
+    void failuresCompleteAsynchronousResults() {
+        final Absent absent = scope.createClientService(Absent.class, null, false);
+        final CompletableFuture<String> future = assertDoesNotThrow(() -> absent.future("a"));
+        final ExecutionException ex = assertThrows(ExecutionException.class, future::get);
+        assertTrue(ex.getCause() instanceof IllegalStateException, ex::toString);
+        final CompletionStage<String> stage = assertDoesNotThrow(() -> absent.stage("a"));
+        assertTrue(stage.toCompletableFuture().isCompletedExceptionally());
+        final Mono<String> mono = assertDoesNotThrow(() -> absent.mono("a"));
+        assertThrows(IllegalStateException.class, mono::block);
+        assertThrows(IllegalStateException.class, () -> absent.plain("a"));
+    }
+
+    @Test
+    void processorFailuresCompleteAsynchronousResults() {
+        final Function<Object[], Object[]> failing = x -> {
+            throw new IllegalArgumentException("bad argument");
+        };
+        final Processed processed = scope.createClientService(Processed.class, Collections.singletonMap("future", failing), false);
+        final CompletableFuture<String> future = assertDoesNotThrow(() -> processed.future("a"));
+        final ExecutionException ex = assertThrows(ExecutionException.class, future::get);
+        assertTrue(ex.getCause() instanceof IllegalArgumentException);
+    }
+}
@@ -0,0 +1,155 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.api.Batched;
+import cn.zenliu.java.rs.rpc.api.Config;
+import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.core.Rpc;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchLoaderTest {
+    public interface Users {
+        @Batched(value = "names", window = 100)
+        Mono<String> name(Integer id);
+
+        @Batched(value = "names", window = 100, size = 2)
+        Mono<String> limited(Integer id);
+
+        @Batched(value = "names", window = 400, size = 2)
+        Mono<String> slow(Integer id);
+
+        @Batched(value = "broken", window = 100)
+        Mono<String> wrong(Integer id);
+
+        List<String> names(List<Integer> ids);
+
+        List<String> broken(List<Integer> ids);
+    }
+
+    static final List<List<Integer>> bulks = new CopyOnWriteArrayList<>();
+
+    public static class UsersImpl implements Users {
+        @Override
+        public Mono<String> name(Integer id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Mono<String> limited(Integer id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Mono<String> slow(Integer id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Mono<String> wrong(Integer id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> names(List<Integer> ids) {
+            bulks.add(ids);
+            return ids.stream().map(x -> "user" + x).collect(Collectors.toList());
+        }
+
+        @Override
+        public List<String> broken(List<Integer> ids) {
+            return ids.subList(1, ids.size()).stream().map(String::valueOf).collect(Collectors.toList());
+        }
+    }
+
+    static Scope server;
+    static Scope client;
+    static Users users;
+
+    @BeforeAll
+    static void start() throws Exception {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = Rpc.newScope("batchLoaderServer", false);
+        server.startServer("batchLoaderServer", Config.Server.builder().bindAddress("127.0.0.1").port(port).build());
+        client = Rpc.newScope("batchLoaderClient", false);
+        client.startClient("batchLoaderClient", Config.Client.builder().host("127.0.0.1").port(port).build());
+        //registered after connected to be pushed at once
+        server.registerService(new UsersImpl(), Users.class, null);
+        Util.awaitRemote(client, Users.class);
+        users = client.createClientService(Users.class, null, false);
+    }
+
+    @AfterAll
+    static void stop() {
+        client.release();
+        server.release();
+    }
+
+    @BeforeEach
+    void reset() {
+        bulks.clear();
+    }
+
+    @Test
+    void concurrentCallsAreCoalesced() {
+        final List<String> names = Flux.range(0, 5).flatMapSequential(users::name).collectList().block(Duration.ofSeconds(5));
+        assertEquals(Arrays.asList("user0", "user1", "user2", "user3", "user4"), names);
+        assertEquals(1, bulks.size(), bulks::toString);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), bulks.get(0));
+    }
+
+    @Test
+    void fullBatchIsSentAtOnce() {
+        final List<String> names = Flux.range(0, 5).flatMapSequential(users::limited).collectList().block(Duration.ofSeconds(5));
+        assertEquals(Arrays.asList("user0", "user1", "user2", "user3", "user4"), names);
+        //bulk calls may be served concurrently
+        assertEquals(3, bulks.size(), bulks::toString);
+        assertTrue(bulks.containsAll(Arrays.asList(Arrays.asList(0, 1), Arrays.asList(2, 3), Arrays.asList(4))), bulks::toString);
+    }
+
+    @Test
+    void equalKeysAreLoadedOnce() {
+        final List<String> names = Flux.just(1, 2, 1, 1).flatMapSequential(users::name).collectList().block(Duration.ofSeconds(5));
+        assertEquals(Arrays.asList("user1", "user2", "user1", "user1"), names);
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2)), bulks);
+    }
+
+    @Test
+    void windowOfFullBatchDoesNotFlushNextOne() throws InterruptedException {
+        //full at once, its window timer must not flush the next batch
+        assertEquals(Arrays.asList("user0", "user1"), Flux.range(0, 2).flatMapSequential(users::slow).collectList().block(Duration.ofSeconds(5)));
+        Thread.sleep(200);
+        final long start = System.nanoTime();
+        assertEquals("user2", users.slow(2).block(Duration.ofSeconds(5)));
+        //timers never fire early, so the next batch waits its own window
+        final long elapsed = System.nanoTime() - start;
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(350), () -> "flushed after " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms");
+        assertEquals(Arrays.asList(Arrays.asList(0, 1), Collections.singletonList(2)), bulks);
+    }
+
+    @Test
+    void mismatchedBulkResultFailsAll() {
+        final List<Throwable> errors = Flux.range(0, 3)
+            .flatMap(i -> users.wrong(i).then(Mono.<Throwable>empty()).onErrorResume(Mono::just))
+            .collectList().block(Duration.ofSeconds(5));
+        assertEquals(3, errors.size());
+        assertTrue(errors.stream().allMatch(e -> e instanceof IllegalStateException), errors::toString);
+    }
+}
@@ -0,0 +1,106 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.api.Batch;
+import cn.zenliu.java.rs.rpc.api.Config;
+import cn.zenliu.java.rs.rpc.api.Result;
+import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.api.ServiceOptions;
+import cn.zenliu.java.rs.rpc.core.Rpc;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchTest {
+    public interface Work {
+        /**
+         * @return true if all parties of the barrier arrived while this call was running
+         */
+        boolean meet(String tag);
+
+        int fail(String message);
+    }
+
+    public interface Absent {
+        int absent(int i);
+    }
+
+    static volatile CountDownLatch barrier;
+
+    public static class WorkImpl implements Work {
+        @Override
+        public boolean meet(String tag) {
+            barrier.countDown();
+            try {
+                return barrier.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public int fail(String message) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    static Scope server;
+    static Scope client;
+
+    @BeforeAll
+    static void start() throws Exception {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = Rpc.newScope("batchServer", false);
+        server.startServer("batchServer", Config.Server.builder().bindAddress("127.0.0.1").port(port).build());
+        client = Rpc.newScope("batchClient", false);
+        client.startClient("batchClient", Config.Client.builder().host("127.0.0.1").port(port).build());
+        //registered after connected to be pushed at once
+        server.registerService(new WorkImpl(), Work.class, null, ServiceOptions.builder().execution(ServiceOptions.Execution.SHARED).build());
+        Util.awaitRemote(client, Work.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        client.release();
+        server.release();
+    }
+
+    @Test
+    void resultsInOrderAndErrorsIsolated() throws Exception {
+        //both calls must be running at once to pass the barrier
+        barrier = new CountDownLatch(2);
+        final Batch batch = client.batch();
+        final Work work = batch.record(Work.class);
+        work.meet("a");
+        work.fail("broken");
+        work.meet("b");
+        assertEquals(3, batch.size());
+        final List<Result<Object>> results = batch.execute().get(10, TimeUnit.SECONDS);
+        assertEquals(3, results.size());
+        assertEquals(true, results.get(0).getOrThrow());
+        assertTrue(results.get(1).hasError());
+        assertTrue(results.get(1).getError().getMessage().contains("broken"), () -> String.valueOf(results.get(1).getError()));
+        assertEquals(true, results.get(2).getOrThrow());
+    }
+
+    @Test
+    void noRemoteCompletesExceptionally() {
+        final Batch batch = client.batch();
+        batch.record(Absent.class).absent(1);
+        final CompletableFuture<List<Result<Object>>> future = assertDoesNotThrow(batch::execute);
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof IllegalStateException, ex::toString);
+    }
+}
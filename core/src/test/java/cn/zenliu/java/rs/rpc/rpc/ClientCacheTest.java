@@ -0,0 +1,156 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.api.Cached;
+import cn.zenliu.java.rs.rpc.api.Config;
+import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.core.Rpc;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.net.ServerSocket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientCacheTest {
+    public interface Stock {
+        @Cached
+        int price(String item);
+
+        @Cached
+        int total(int[] counts);
+
+        @Cached
+        int fail(String item);
+
+        int count(String method);
+    }
+
+    public static class StockImpl implements Stock {
+        final AtomicInteger price = new AtomicInteger();
+        final AtomicInteger total = new AtomicInteger();
+        final AtomicInteger fail = new AtomicInteger();
+
+        @Override
+        public int price(String item) {
+            price.incrementAndGet();
+            return item.length();
+        }
+
+        @Override
+        public int total(int[] counts) {
+            total.incrementAndGet();
+            int sum = 0;
+            for (int c : counts) sum += c;
+            return sum;
+        }
+
+        @Override
+        public int fail(String item) {
+            fail.incrementAndGet();
+            throw new IllegalStateException(item);
+        }
+
+        @Override
+        public int count(String method) {
+            switch (method) {
+                case "price":
+                    return price.get();
+                case "total":
+                    return total.get();
+                default:
+                    return fail.get();
+            }
+        }
+    }
+
+    public interface CachedStream {
+        @Cached
+        Flux<Integer> prices(String item);
+    }
+
+    public interface CachedNotice {
+        @Cached
+        void notice(String item);
+    }
+
+    static Scope server;
+    static Scope client;
+    static Stock stock;
+
+    @BeforeAll
+    static void start() throws Exception {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = Rpc.newScope("clientCacheServer", false);
+        server.startServer("clientCacheServer", Config.Server.builder().bindAddress("127.0.0.1").port(port).build());
+        client = Rpc.newScope("clientCacheClient", false);
+        client.startClient("clientCacheClient", Config.Client.builder().host("127.0.0.1").port(port).build());
+        server.registerService(new StockImpl(), Stock.class, null);
+        Util.awaitRemote(client, Stock.class);
+        stock = client.createClientService(Stock.class, null, false);
+    }
+
+    @AfterAll
+    static void stop() {
+        client.release();
+        server.release();
+    }
+
+    @Test
+    void keyedByEncodedArguments() {
+        final int before = stock.count("total");
+        assertEquals(6, stock.total(new int[]{1, 2, 3}));
+        //a equal array is a hit
+        assertEquals(6, stock.total(new int[]{1, 2, 3}));
+        assertEquals(before + 1, stock.count("total"));
+        assertEquals(5, stock.total(new int[]{2, 3}));
+        assertEquals(before + 2, stock.count("total"));
+    }
+
+    @Test
+    void errorsAreNotCached() {
+        final int before = stock.count("fail");
+        assertThrows(IllegalStateException.class, () -> stock.fail("a"));
+        assertThrows(IllegalStateException.class, () -> stock.fail("a"));
+        assertEquals(before + 2, stock.count("fail"));
+    }
+
+    @Test
+    void invalidateLocally() {
+        assertEquals(4, stock.price("milk"));
+        final int cached = stock.count("price");
+        assertEquals(4, stock.price("milk"));
+        assertEquals(cached, stock.count("price"));
+        client.invalidateCache(Stock.class, "total");
+        assertEquals(4, stock.price("milk"));
+        assertEquals(cached, stock.count("price"), "other methods are kept");
+        client.invalidateCache(Stock.class, "price");
+        assertEquals(4, stock.price("milk"));
+        assertEquals(cached + 1, stock.count("price"));
+    }
+
+    @Test
+    void invalidateByPush() throws InterruptedException {
+        assertEquals(5, stock.price("bread"));
+        final int cached = stock.count("price");
+        server.pushCacheInvalidation(Stock.class, null);
+        //the push is asynchronous
+        for (int i = 0; i < 250; i++) {
+            assertEquals(5, stock.price("bread"));
+            if (stock.count("price") > cached) break;
+            Thread.sleep(20);
+        }
+        assertEquals(cached + 1, stock.count("price"));
+    }
+
+    @Test
+    void onlyRequestResponseMethodsAreCached() {
+        assertThrows(IllegalStateException.class, () -> client.createClientService(CachedStream.class, null, false));
+        assertThrows(IllegalStateException.class, () -> client.createClientService(CachedNotice.class, null, true));
+    }
+}
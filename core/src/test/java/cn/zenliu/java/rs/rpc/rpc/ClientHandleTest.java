@@ -0,0 +1,109 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.api.Batched;
+import cn.zenliu.java.rs.rpc.api.Config;
+import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.core.Rpc;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientHandleTest {
+    public interface Greeter {
+        String greet(String name);
+
+        String plain(String name);
+
+        /**
+         * skipped by both service and client
+         */
+        static String hello() {
+            return "hello";
+        }
+    }
+
+    public interface Absent {
+        String absent(String name);
+    }
+
+    public interface BrokenBatch {
+        @Batched("missing")
+        String one(String key);
+    }
+
+    public interface StreamBatch {
+        @Batched("all")
+        Flux<String> one(String key);
+
+        Flux<String> all(List<String> keys);
+    }
+
+    static Scope server;
+    static Scope client;
+
+    @BeforeAll
+    static void start() throws Exception {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = Rpc.newScope("clientHandleServer", false);
+        client = Rpc.newScope("clientHandle", false);
+        server.startServer("clientHandleServer", Config.Server.builder().bindAddress("127.0.0.1").port(port).build());
+        client.startClient("clientHandleClient", Config.Client.builder().host("127.0.0.1").port(port).build());
+        //registered after connected to be pushed at once
+        server.registerService(new Greeter() {
+            @Override
+            public String greet(String name) {
+                return "hi " + name;
+            }
+
+            @Override
+            public String plain(String name) {
+                return name;
+            }
+        }, Greeter.class, null);
+        Util.awaitRemote(client, Greeter.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        client.release();
+        server.release();
+    }
+
+    @Test
+    void objectMethodsAreLocal() {
+        final Absent absent = client.createClientService(Absent.class, null, false);
+        //no remote serves it, object methods must not be sent
+        assertTrue(absent.toString().contains("$Proxy$clientHandle"), absent::toString);
+        assertEquals(System.identityHashCode(absent), absent.hashCode());
+        assertEquals(absent, absent);
+        assertNotEquals(absent, new Object());
+        assertSame(absent, client.createClientService(Absent.class, null, false));
+        assertThrows(IllegalStateException.class, () -> absent.absent("a"));
+    }
+
+    @Test
+    void processorsAreBoundByMethod() {
+        final Function<Object[], Object[]> upper = args -> new Object[]{((String) args[0]).toUpperCase()};
+        final Greeter greeter = client.createClientService(Greeter.class, Collections.singletonMap("greet", upper), false);
+        assertEquals("hi A", greeter.greet("a"));
+        assertEquals("a", greeter.plain("a"));
+    }
+
+    @Test
+    void invalidMethodsFailAtCreation() {
+        final IllegalStateException ex = assertThrows(IllegalStateException.class, () -> client.createClientService(BrokenBatch.class, null, false));
+        assertTrue(ex.getMessage().contains("missing"), ex::getMessage);
+        assertThrows(IllegalStateException.class, () -> client.createClientService(StreamBatch.class, null, false));
+    }
+}
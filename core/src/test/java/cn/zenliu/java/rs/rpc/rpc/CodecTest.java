@@ -0,0 +1,55 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.api.Result;
+import cn.zenliu.java.rs.rpc.core.Meta;
+import cn.zenliu.java.rs.rpc.core.Proto;
+import cn.zenliu.java.rs.rpc.core.Request;
+import cn.zenliu.java.rs.rpc.core.Response;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.Payload;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodecTest {
+    static final String SIGN = "cn.zenliu.Service#call<String,int>";
+
+    @Test
+    void requestRoundTrip() {
+        final Payload payload = Request.build(SIGN, "codec", new Object[]{"a", 1, null, Arrays.asList(1, 2)}, true);
+        final Meta meta = Response.parseMeta(payload);
+        assertEquals(SIGN, meta.getSign());
+        assertEquals("codec", meta.getFrom());
+        assertTrue(meta.isTrace());
+        final Request request = Request.parseRequest(payload);
+        assertArrayEquals(new Object[]{"a", 1, null, Arrays.asList(1, 2)}, request.getArguments());
+        //parsed payloads are released
+        assertEquals(0, payload.refCnt());
+    }
+
+    @Test
+    void responseRoundTrip() {
+        final Meta meta = Response.parseMeta(Request.build(SIGN, "codec", new Object[0], false));
+        final Payload ok = Response.build(meta, "server", Result.ok(Arrays.asList("x", "y")));
+        assertEquals(SIGN, Response.parseMeta(ok).getSign());
+        assertEquals(Arrays.asList("x", "y"), Response.parse(ok).getResponse().getResult());
+        assertEquals(0, ok.refCnt());
+        final Payload error = Response.build(meta, null, Result.error(new IllegalStateException("broken")));
+        final Result<Object> result = Response.parse(error).getResponse();
+        assertTrue(result.hasError());
+        assertEquals("broken", result.getError().getMessage());
+        assertEquals("e", Response.parseElement(Response.buildElement("e")));
+    }
+
+    @Test
+    void releaseDataWhenMetadataFails() {
+        final ByteBuf data = Unpooled.directBuffer().writeInt(1);
+        assertThrows(IllegalStateException.class, () -> Proto.toPayload(data, () -> {
+            throw new IllegalStateException("metadata");
+        }));
+        assertEquals(0, data.refCnt());
+    }
+}
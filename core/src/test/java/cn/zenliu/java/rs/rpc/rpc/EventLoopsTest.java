@@ -0,0 +1,57 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.api.Config;
+import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.core.EventLoops;
+import cn.zenliu.java.rs.rpc.core.Rpc;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventLoopsTest {
+    public interface Where {
+        String thread();
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Test
+    void sharedLoopsOfServerAndClient() throws Exception {
+        final Config.Loop loop = Config.Loop.builder().name("sharedLoops").workers(2).build();
+        final int port = freePort();
+        final Scope server = Rpc.newScope("sharedLoopsServer", false);
+        final Scope client = Rpc.newScope("sharedLoopsClient", false);
+        try {
+            server.registerService(() -> Thread.currentThread().getName(), Where.class, null);
+            server.startServer("sharedLoopsServer", Config.Server.builder().bindAddress("127.0.0.1").port(port).loop(loop).build());
+            client.startClient("sharedLoopsClient", Config.Client.builder().host("127.0.0.1").port(port).loop(loop).build());
+            Util.awaitRemote(client, Where.class);
+            final EventLoops loops = EventLoops.getLoops().get("sharedLoops");
+            assertNotNull(loops);
+            //a handler without async result is served on the loop of server
+            final String thread = client.createClientService(Where.class, null, false).thread();
+            assertTrue(thread.startsWith("sharedLoops-io"), thread);
+            assertSame(loops, EventLoops.of(Config.Loop.builder().name("sharedLoops").workers(4).build()));
+        } finally {
+            client.release();
+            server.release();
+        }
+        final EventLoops loops = EventLoops.getLoops().get("sharedLoops");
+        assertNotNull(loops, "loops are kept after release of scopes");
+        loops.disposeLater(Duration.ZERO, Duration.ofSeconds(5)).block(Duration.ofSeconds(10));
+        assertTrue(loops.isDisposed());
+        assertFalse(EventLoops.getLoops().containsKey("sharedLoops"));
+        //a disposed name is created again on demand
+        final EventLoops again = EventLoops.of(loop);
+        assertNotSame(loops, again);
+        again.dispose();
+    }
+}
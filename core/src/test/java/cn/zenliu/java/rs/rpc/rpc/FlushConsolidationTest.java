@@ -0,0 +1,64 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.api.Config;
+import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.core.RSocketUtil;
+import cn.zenliu.java.rs.rpc.core.Rpc;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import org.junit.jupiter.api.Test;
+import reactor.netty.Connection;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlushConsolidationTest {
+    public interface Echo {
+        String echo(String s);
+    }
+
+    @Test
+    void flushesAreConsolidated() {
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        try {
+            RSocketUtil.consolidateFlush(Connection.from(channel), 2);
+            assertTrue(channel.pipeline().get(RSocketUtil.FLUSH_CONSOLIDATION) instanceof FlushConsolidationHandler);
+            channel.writeAndFlush("a");
+            //delayed to the end of current event loop tick
+            assertNull(channel.readOutbound());
+            channel.runPendingTasks();
+            assertEquals("a", channel.readOutbound());
+            //forced at max flushes
+            channel.writeAndFlush("b");
+            channel.writeAndFlush("c");
+            assertEquals("b", channel.readOutbound());
+            assertEquals("c", channel.readOutbound());
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void callOverConsolidatedTcp() throws Exception {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        final Scope server = Rpc.newScope("flushConsolidationServer", false);
+        final Scope client = Rpc.newScope("flushConsolidationClient", false);
+        try {
+            server.startServer("flushConsolidationServer", Config.Server.builder().bindAddress("127.0.0.1").port(port).flushConsolidation(16).build());
+            client.startClient("flushConsolidationClient", Config.Client.builder().host("127.0.0.1").port(port).flushConsolidation(16).build());
+            //registered after connected to be pushed at once
+            server.registerService(s -> s, Echo.class, null);
+            Util.awaitRemote(client, Echo.class);
+            final Echo echo = client.createClientService(Echo.class, null, false);
+            for (int i = 0; i < 32; i++) assertEquals("a" + i, echo.echo("a" + i));
+        } finally {
+            client.release();
+            server.release();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.core.LoadBalancer;
+import cn.zenliu.java.rs.rpc.core.Remote;
+import cn.zenliu.java.rs.rpc.core.RemoteGroup;
+import cn.zenliu.java.rs.rpc.core.RemoteStats;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadBalancerTest {
+
+    static RemoteGroup group(int n) {
+        final RemoteGroup group = new RemoteGroup();
+        for (int i = 0; i < n; i++) group.add(Remote.builder().name("same").build());
+        return group;
+    }
+
+    @Test
+    void replicasNotCollapse() {
+        final RemoteGroup group = group(3);
+        assertEquals(3, group.size());
+        final Remote r = group.remotes()[1];
+        assertTrue(group.remove(r));
+        assertEquals(2, group.size());
+        assertFalse(group.remove(r));
+    }
+
+    @Test
+    void strategiesSpread() {
+        for (LoadBalancer balancer : new LoadBalancer[]{LoadBalancer.roundRobin(), LoadBalancer.weightedRandom(), LoadBalancer.leastOutstanding(), LoadBalancer.powerOfTwo()}) {
+            final RemoteGroup group = group(3);
+            final Set<Remote> chosen = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int i = 0; i < 300; i++) chosen.add(group.select(balancer));
+            assertEquals(3, chosen.size(), balancer.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void weights() {
+        final RemoteGroup group = group(3);
+        final Remote[] remotes = group.remotes();
+        remotes[0].setWeight(0);
+        remotes[1].setWeight(3);
+        remotes[2].setWeight(1);
+        final int[] count = new int[3];
+        for (int i = 0; i < 4000; i++) {
+            final Remote r = group.select(LoadBalancer.weightedRandom());
+            for (int j = 0; j < 3; j++) if (remotes[j] == r) count[j]++;
+        }
+        assertEquals(0, count[0]);
+        final double ratio = count[1] / (double) count[2];
+        assertTrue(ratio > 2 && ratio < 4.5, "ratio " + ratio);
+    }
+
+    @Test
+    void inflightAccounting() {
+        final RemoteGroup group = group(2);
+        final Remote busy = group.remotes()[0];
+        final RemoteStats stats = busy.getStats();
+        final Disposable[] calls = new Disposable[3];
+        for (int i = 0; i < calls.length; i++) calls[i] = stats.track(Mono.never()).subscribe();
+        assertEquals(3, stats.getInflight());
+        for (int i = 0; i < 10; i++) {
+            assertNotSame(busy, group.select(LoadBalancer.leastOutstanding()));
+            assertNotSame(busy, group.select(LoadBalancer.powerOfTwo()));
+        }
+        for (Disposable call : calls) call.dispose();
+        assertEquals(0, stats.getInflight());
+        assertEquals(0, stats.getLatency(), "cancelled calls are not sampled");
+    }
+
+    @Test
+    void peakEwmaAvoidsSlowRemote() {
+        final RemoteGroup group = group(2);
+        final Remote slow = group.remotes()[0];
+        final Remote fast = group.remotes()[1];
+        //synchronous sources: samples are taken once block returns
+        slow.getStats().track(Mono.fromCallable(() -> {
+            Thread.sleep(50);
+            return 1;
+        })).block();
+        fast.getStats().track(Mono.just(1)).block();
+        assertTrue(slow.getStats().getLatency() > fast.getStats().getLatency());
+        for (int i = 0; i < 10; i++) assertSame(fast, group.select(LoadBalancer.powerOfTwo()));
+        //cost grows with outstanding calls
+        final double idle = fast.getStats().cost();
+        final Disposable[] calls = new Disposable[100];
+        for (int i = 0; i < calls.length; i++) calls[i] = fast.getStats().track(Mono.never()).subscribe();
+        assertEquals(idle * 101, fast.getStats().cost(), idle);
+        for (Disposable call : calls) call.dispose();
+        assertEquals(idle, fast.getStats().cost());
+    }
+
+    @Test
+    void statsBackToBaseline() {
+        final RemoteStats stats = group(1).remotes()[0].getStats();
+        assertEquals(3, Flux.range(0, 3).flatMap(i -> stats.track(Mono.fromCallable(() -> {
+            Thread.sleep(5);
+            return i;
+        }))).count().block());
+        assertEquals(0, stats.getInflight());
+        assertEquals(3L, stats.dump().get("total"));
+        assertEquals(3, stats.track(Flux.range(0, 3)).count().block());
+        assertEquals(0, stats.getInflight());
+        assertThrows(IllegalStateException.class, () -> stats.track(Mono.error(new IllegalStateException())).block());
+        assertEquals(0, stats.getInflight());
+        assertEquals(5L, stats.dump().get("total"));
+        assertEquals(1L, stats.dump().get("errors"));
+        assertTrue(stats.getLatency() > 0);
+    }
+}
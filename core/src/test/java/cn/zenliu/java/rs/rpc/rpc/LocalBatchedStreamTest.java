@@ -0,0 +1,60 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.api.ClientOptions;
+import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.api.ServiceOptions;
+import cn.zenliu.java.rs.rpc.core.Rpc;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalBatchedStreamTest {
+    public interface Numbers {
+        Flux<Integer> range(int count);
+
+        Flux<String> echo(String tag, Flux<String> in);
+    }
+
+    public static class NumbersImpl implements Numbers {
+        @Override
+        public Flux<Integer> range(int count) {
+            return Flux.range(0, count);
+        }
+
+        @Override
+        public Flux<String> echo(String tag, Flux<String> in) {
+            return in.map(x -> tag + x);
+        }
+    }
+
+    static Scope scope;
+    static Numbers numbers;
+
+    @BeforeAll
+    static void start() {
+        scope = Rpc.newScope("localBatchedStream", false);
+        scope.registerService(new NumbersImpl(), Numbers.class, null, ServiceOptions.builder().batchSize(3).build());
+        numbers = scope.createClientService(Numbers.class, null, false, ClientOptions.builder().local(true).build());
+    }
+
+    @AfterAll
+    static void stop() {
+        scope.release();
+    }
+
+    @Test
+    void batchedStreamIsUnpacked() {
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6), numbers.range(7).collectList().block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void batchedChannelIsUnpacked() {
+        assertEquals(Arrays.asList("-a", "-b", "-c", "-d"), numbers.echo("-", Flux.just("a", "b", "c", "d")).collectList().block(Duration.ofSeconds(5)));
+    }
+}
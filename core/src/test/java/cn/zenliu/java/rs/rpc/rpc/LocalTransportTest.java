@@ -0,0 +1,159 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.api.Batch;
+import cn.zenliu.java.rs.rpc.api.ClientOptions;
+import cn.zenliu.java.rs.rpc.api.Config;
+import cn.zenliu.java.rs.rpc.api.Result;
+import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.core.Rpc;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalTransportTest {
+    public interface Echo {
+        String echo(String s);
+
+        Flux<Integer> range(int count);
+
+        Flux<String> prefix(String tag, Flux<String> in);
+
+        CompletableFuture<String> future(String s);
+
+        Mono<String> mono(String s);
+
+        int sleep(int millis);
+    }
+
+    public static class EchoImpl implements Echo {
+        @Override
+        public String echo(String s) {
+            return s;
+        }
+
+        @Override
+        public Flux<Integer> range(int count) {
+            return Flux.range(0, count);
+        }
+
+        @Override
+        public Flux<String> prefix(String tag, Flux<String> in) {
+            return in.map(x -> tag + x);
+        }
+
+        @Override
+        public CompletableFuture<String> future(String s) {
+            return CompletableFuture.supplyAsync(() -> "future:" + s);
+        }
+
+        @Override
+        public Mono<String> mono(String s) {
+            return Mono.just("mono:" + s);
+        }
+
+        @Override
+        public int sleep(int millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return millis;
+        }
+    }
+
+    static final Duration WAIT = Duration.ofSeconds(5);
+    static Scope server;
+    static Scope client;
+    static Echo echo;
+
+    @BeforeAll
+    static void start() throws InterruptedException {
+        server = Rpc.newScope("localTransportServer", false);
+        server.registerService(new EchoImpl(), Echo.class, null);
+        server.startServer("localTransportServer", Config.Server.builder().mode(2).bindAddress("localTransport").build());
+        client = Rpc.newScope("localTransportClient", false);
+        client.startClient("localTransportClient", Config.Client.builder().mode(2).host("localTransport").build());
+        Util.awaitRemote(client, Echo.class);
+        echo = client.createClientService(Echo.class, null, false);
+    }
+
+    @AfterAll
+    static void stop() {
+        client.release();
+        server.release();
+    }
+
+    @Test
+    void requestResponse() {
+        assertEquals("a", echo.echo("a"));
+        assertNull(echo.echo(null));
+    }
+
+    @Test
+    void requestStream() {
+        assertEquals(Arrays.asList(0, 1, 2, 3), echo.range(4).collectList().block(WAIT));
+    }
+
+    @Test
+    void requestChannel() {
+        assertEquals(Arrays.asList("-a", "-b"), echo.prefix("-", Flux.just("a", "b")).collectList().block(WAIT));
+    }
+
+    @Test
+    void asynchronousReturns() throws Exception {
+        assertEquals("future:a", echo.future("a").get(5, TimeUnit.SECONDS));
+        assertEquals("mono:a", echo.mono("a").block(WAIT));
+    }
+
+    @Test
+    void batch() throws Exception {
+        final Batch batch = client.batch();
+        final Echo recorder = batch.record(Echo.class);
+        recorder.echo("a");
+        recorder.echo("b");
+        final List<Result<Object>> results = batch.execute().get(5, TimeUnit.SECONDS);
+        assertEquals(2, results.size());
+        assertEquals("a", results.get(0).getOrThrow());
+        assertEquals("b", results.get(1).getOrThrow());
+    }
+
+    @Test
+    void slowCallFails() {
+        //handlers run off the thread of caller, so the timeout fires while a call is running
+        final Echo patient = client.createClientService(Echo.class, null, false, ClientOptions.builder().timeout(Duration.ofMillis(300)).build());
+        assertEquals(10, patient.sleep(10));
+        final long start = System.nanoTime();
+        final RuntimeException ex = assertThrows(RuntimeException.class, () -> patient.sleep(1500));
+        assertTrue(Exceptions.unwrap(ex) instanceof TimeoutException, ex::toString);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1000));
+    }
+
+    @Test
+    void localDispatch() throws Exception {
+        //a scope without connection, only served by the handlers in this JVM
+        final Scope local = Rpc.newScope("localTransportLocal", false);
+        try {
+            final Echo direct = local.createClientService(Echo.class, null, false, ClientOptions.builder().local(true).build());
+            assertEquals("a", direct.echo("a"));
+            assertEquals(Arrays.asList(0, 1, 2), direct.range(3).collectList().block(WAIT));
+            assertEquals(Arrays.asList("-a", "-b"), direct.prefix("-", Flux.just("a", "b")).collectList().block(WAIT));
+            assertEquals("future:a", direct.future("a").get(5, TimeUnit.SECONDS));
+            assertEquals("mono:a", direct.mono("a").block(WAIT));
+        } finally {
+            local.release();
+        }
+    }
+}
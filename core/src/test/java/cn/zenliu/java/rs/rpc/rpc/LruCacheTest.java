@@ -0,0 +1,41 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.core.LruCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruCacheTest {
+
+    @Test
+    void protectHotKeys() {
+        final LruCache<Integer, String> cache = new LruCache<>(10, null);
+        cache.put(0, "hot");
+        assertEquals("hot", cache.get(0));
+        for (int i = 1; i < 100; i++) cache.put(i, "v" + i);
+        assertEquals("hot", cache.get(0));
+        assertNull(cache.get(1));
+        assertTrue(cache.size() <= 10);
+        assertTrue(cache.getEvictions() > 0);
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void expireAndInvalidate() throws InterruptedException {
+        final LruCache<String, String> cache = new LruCache<>(100, Duration.ofMillis(20));
+        cache.put("a", "A");
+        cache.put("b", "B");
+        assertTrue(cache.invalidate("b"));
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        Thread.sleep(30);
+        assertNull(cache.get("a"));
+        cache.put("x1", "X");
+        cache.put("y1", "Y");
+        assertEquals(1, cache.invalidateIf(k -> k.startsWith("x")));
+        assertEquals("Y", cache.get("y1"));
+    }
+}
@@ -0,0 +1,116 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.api.Config;
+import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.api.ServiceOptions;
+import cn.zenliu.java.rs.rpc.core.Rpc;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoizeTest {
+    public interface Pure {
+        int sum(List<Integer> values);
+
+        int fail(int value);
+
+        int plain(int value);
+    }
+
+    static final AtomicInteger sum = new AtomicInteger();
+    static final AtomicInteger fail = new AtomicInteger();
+    static final AtomicInteger plain = new AtomicInteger();
+
+    public static class PureImpl implements Pure {
+        @Override
+        public int sum(List<Integer> values) {
+            sum.incrementAndGet();
+            return values.stream().mapToInt(Integer::intValue).sum();
+        }
+
+        @Override
+        public int fail(int value) {
+            fail.incrementAndGet();
+            throw new IllegalArgumentException(String.valueOf(value));
+        }
+
+        @Override
+        public int plain(int value) {
+            plain.incrementAndGet();
+            return value;
+        }
+    }
+
+    static Scope server;
+    static Scope client;
+    static Pure pure;
+
+    @BeforeAll
+    static void start() throws Exception {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = Rpc.newScope("memoizeServer", false);
+        server.startServer("memoizeServer", Config.Server.builder().bindAddress("127.0.0.1").port(port).build());
+        client = Rpc.newScope("memoizeClient", false);
+        client.startClient("memoizeClient", Config.Client.builder().host("127.0.0.1").port(port).build());
+        final ServiceOptions memoized = ServiceOptions.builder().memoize(16).build();
+        server.registerService(new PureImpl(), Pure.class, null, ServiceOptions.builder()
+            .method("sum", memoized)
+            .method("fail", memoized)
+            .build());
+        Util.awaitRemote(client, Pure.class);
+        pure = client.createClientService(Pure.class, null, false);
+    }
+
+    @AfterAll
+    static void stop() {
+        client.release();
+        server.release();
+    }
+
+    @Test
+    void equalEncodedArgumentsAreServedFromMemo() {
+        final int before = sum.get();
+        assertEquals(6, pure.sum(Arrays.asList(1, 2, 3)));
+        assertEquals(6, pure.sum(Arrays.asList(1, 2, 3)));
+        assertEquals(before + 1, sum.get());
+        assertEquals(5, pure.sum(Arrays.asList(2, 3)));
+        assertEquals(before + 2, sum.get());
+    }
+
+    @Test
+    void onlyConfiguredMethodsAreMemoized() {
+        final int before = plain.get();
+        assertEquals(1, pure.plain(1));
+        assertEquals(1, pure.plain(1));
+        assertEquals(before + 2, plain.get());
+    }
+
+    @Test
+    void errorsAreNotMemoized() {
+        final int before = fail.get();
+        assertThrows(IllegalArgumentException.class, () -> pure.fail(1));
+        assertThrows(IllegalArgumentException.class, () -> pure.fail(1));
+        assertEquals(before + 2, fail.get());
+    }
+
+    @Test
+    void invalidateMemo() {
+        assertEquals(10, pure.sum(Arrays.asList(10)));
+        final int memoized = sum.get();
+        assertEquals(10, pure.sum(Arrays.asList(10)));
+        assertEquals(memoized, sum.get());
+        server.invalidateMemo(Pure.class, "sum");
+        assertEquals(10, pure.sum(Arrays.asList(10)));
+        assertEquals(memoized + 1, sum.get());
+    }
+}
@@ -0,0 +1,96 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.core.Meta;
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetaTest {
+
+    @Test
+    void encodeDecode() {
+        final Meta meta = Meta.builder().sign("a.B#c<String").from("scope").trace(true).build().addTrace("route");
+        final ByteBuf buf = meta.encode();
+        try {
+            final Meta decoded = Meta.decode(buf);
+            assertEquals(meta.getSign(), decoded.getSign());
+            assertEquals(meta.getFrom(), decoded.getFrom());
+            assertEquals(meta.getTick(), decoded.getTick());
+            assertEquals(meta.getUuid(), decoded.getUuid());
+            assertTrue(decoded.isTrace());
+            assertEquals(meta.getLink(), decoded.getLink());
+            assertEquals(0, buf.readerIndex());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    void methodId() {
+        final ByteBuf buf = Meta.builder().method(42).build().encode();
+        try {
+            final Meta decoded = Meta.decode(buf);
+            assertEquals(42, decoded.getMethod());
+            assertNull(decoded.getSign());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    void optionalSections() {
+        final ByteBuf buf = Meta.builder().build().encode();
+        try {
+            assertEquals(2 + 24, buf.readableBytes());
+            final Meta decoded = Meta.decode(buf);
+            assertNull(decoded.getSign());
+            assertNull(decoded.getFrom());
+            assertNull(decoded.getLink());
+            assertEquals(-1, decoded.getMethod());
+            assertFalse(decoded.isTrace());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    void rejectLongString() {
+        final char[] chars = new char[0x10000];
+        Arrays.fill(chars, 'a');
+        final Meta meta = Meta.builder().sign(new String(chars)).build();
+        assertThrows(IllegalArgumentException.class, meta::encode);
+        chars[0] = 'b';
+        final ByteBuf buf = Meta.builder().sign(new String(chars, 1, 0xFFFF)).build().encode();
+        try {
+            assertEquals(0xFFFF, Meta.decode(buf).getSign().length());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    void deadlineBudget() {
+        final Meta meta = Meta.builder().sign("a.B#c<").deadline(System.nanoTime() + TimeUnit.SECONDS.toNanos(10)).build();
+        final long budget = meta.remaining();
+        final ByteBuf buf = meta.encode();
+        try {
+            final Meta decoded = Meta.decode(buf);
+            assertTrue(decoded.hasDeadline());
+            assertFalse(decoded.isExpired());
+            assertTrue(decoded.remaining() <= budget);
+            assertTrue(decoded.remaining() > TimeUnit.SECONDS.toNanos(9));
+        } finally {
+            buf.release();
+        }
+        final ByteBuf expired = Meta.builder().sign("a.B#c<").deadline(System.nanoTime() - 1).build().encode();
+        try {
+            assertTrue(Meta.decode(expired).isExpired());
+        } finally {
+            expired.release();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.core.Proto;
+import cn.zenliu.java.rs.rpc.core.Request;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProtoTest {
+    static final Object[] ARGUMENTS = {"a", 1L, Arrays.asList("x", "y"), new int[]{1, 2}};
+
+    static byte[] encoded() {
+        return Proto.to(Request.builder().arguments(ARGUMENTS).build());
+    }
+
+    static void assertDecoded(ByteBuf buf) {
+        final int reader = buf.readerIndex();
+        try {
+            final Request request = Proto.from(buf, Request.class);
+            assertEquals("a", request.getArguments()[0]);
+            assertEquals(1L, request.getArguments()[1]);
+            assertEquals(Arrays.asList("x", "y"), request.getArguments()[2]);
+            assertArrayEquals(new int[]{1, 2}, (int[]) request.getArguments()[3]);
+            //decoded in place
+            assertEquals(reader, buf.readerIndex());
+            assertEquals(1, buf.refCnt());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    void heapBuffer() {
+        final ByteBuf buf = Unpooled.buffer().writeBytes(new byte[]{9, 9}).writeBytes(encoded());
+        buf.skipBytes(2);
+        assertTrue(buf.hasArray());
+        assertDecoded(buf);
+    }
+
+    @Test
+    void directBuffer() {
+        final ByteBuf buf = Unpooled.directBuffer().writeBytes(encoded());
+        assertFalse(buf.hasArray());
+        assertEquals(1, buf.nioBufferCount());
+        assertDecoded(buf);
+    }
+
+    @Test
+    void compositeBuffer() {
+        final byte[] data = encoded();
+        final int half = data.length / 2;
+        final CompositeByteBuf buf = Unpooled.compositeBuffer()
+            .addComponent(true, Unpooled.directBuffer().writeBytes(data, 0, half))
+            .addComponent(true, Unpooled.directBuffer().writeBytes(data, half, data.length - half));
+        assertFalse(buf.hasArray());
+        assertEquals(2, buf.nioBufferCount());
+        assertDecoded(buf);
+    }
+
+    @Test
+    void byteBuffer() {
+        final ByteBuffer buffer = ByteBuffer.wrap(encoded());
+        final Request request = Proto.from(buffer, Request.class);
+        assertEquals("a", request.getArguments()[0]);
+        assertEquals(0, buffer.position());
+    }
+}
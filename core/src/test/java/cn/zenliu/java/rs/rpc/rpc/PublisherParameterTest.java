@@ -0,0 +1,61 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.core.Rpc;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PublisherParameterTest {
+    public interface Channel {
+        Flux<String> echo(String tag, Flux<String> in);
+    }
+
+    public interface MonoParameter {
+        Mono<String> take(Mono<String> in);
+    }
+
+    public interface FluxToMono {
+        Mono<Integer> count(Flux<String> in);
+    }
+
+    public interface TwoFlux {
+        Flux<String> zip(Flux<String> a, Flux<String> b);
+    }
+
+    static Scope scope;
+
+    @BeforeAll
+    static void start() {
+        scope = Rpc.newScope("publisherParameter", false);
+    }
+
+    @AfterAll
+    static void stop() {
+        scope.release();
+    }
+
+    @Test
+    void acceptChannel() {
+        assertNotNull(scope.createClientService(Channel.class, null, false));
+        assertDoesNotThrow(() -> scope.registerService((tag, in) -> in.map(x -> tag + x), Channel.class, null));
+    }
+
+    @Test
+    void rejectUnsupportedShapes() {
+        assertThrows(IllegalStateException.class, () -> scope.createClientService(MonoParameter.class, null, false));
+        assertThrows(IllegalStateException.class, () -> scope.createClientService(FluxToMono.class, null, false));
+        assertThrows(IllegalStateException.class, () -> scope.createClientService(TwoFlux.class, null, false));
+        assertThrows(IllegalStateException.class, () -> scope.registerService(in -> in, MonoParameter.class, null));
+        assertThrows(IllegalStateException.class, () -> scope.registerService(in -> in.count().map(Long::intValue), FluxToMono.class, null));
+        //a rejected service is not registered
+        final IllegalStateException again = assertThrows(IllegalStateException.class, () -> scope.registerService(in -> in, MonoParameter.class, null));
+        assertTrue(again.getMessage().startsWith("unsupported publisher parameter"), again::getMessage);
+        final MonoParameter recorded = scope.batch().record(MonoParameter.class);
+        assertThrows(IllegalStateException.class, () -> recorded.take(Mono.just("a")));
+    }
+}
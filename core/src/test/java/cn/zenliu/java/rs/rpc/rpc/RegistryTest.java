@@ -0,0 +1,38 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.core.Registry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistryTest {
+
+    @Test
+    void slots() {
+        final Registry<String> registry = Registry.of();
+        assertEquals(0, registry.register("a", "A"));
+        assertEquals(1, registry.prepare("b"));
+        assertEquals(-1, registry.register("a", "X"));
+        assertEquals(-1, registry.prepare("b"));
+        assertEquals("A", registry.find("a"));
+        assertNull(registry.get(1));
+        registry.set(1, "B");
+        assertEquals("B", registry.get(registry.indexOf("b")));
+        assertEquals("b", registry.key(1));
+        assertNull(registry.get(2));
+        assertNull(registry.key(-1));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void alias() {
+        final Registry<String> registry = Registry.withAlias(x -> x.endsWith("?") ? x.substring(0, x.length() - 1) : null);
+        final int routed = registry.getOrAdd("a?");
+        assertEquals(-1, registry.indexOf("a"));
+        assertEquals(routed, registry.resolve("a"));
+        final int direct = registry.getOrAdd("a");
+        assertEquals(direct, registry.resolve("a"));
+        assertEquals("v", registry.computeIfAbsent("a", k -> "v"));
+        assertEquals("v", registry.computeIfAbsent("a", k -> "w"));
+    }
+}
@@ -0,0 +1,71 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.api.Config;
+import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.core.Rpc;
+import io.netty.channel.epoll.Epoll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SocketTransportTest {
+    public interface Echo {
+        String echo(String s);
+    }
+
+    static void assertCalls(Scope server, Scope client) throws InterruptedException {
+        server.registerService(s -> s, Echo.class, null);
+        Util.awaitRemote(client, Echo.class);
+        final Echo echo = client.createClientService(Echo.class, null, false);
+        for (int i = 0; i < 8; i++) assertEquals("a" + i, echo.echo("a" + i));
+    }
+
+    @Test
+    void callOverTunedTcp() throws Exception {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        final Config.Socket socket = Config.Socket.builder()
+            .preferNative(false)
+            .tcpNoDelay(true)
+            .sendBufferSize(64 * 1024)
+            .receiveBufferSize(64 * 1024)
+            .build();
+        final Scope server = Rpc.newScope("socketTcpServer", false);
+        final Scope client = Rpc.newScope("socketTcpClient", false);
+        try {
+            server.startServer("socketTcpServer", Config.Server.builder().bindAddress("127.0.0.1").port(port).socket(socket).build());
+            client.startClient("socketTcpClient", Config.Client.builder().host("127.0.0.1").port(port).socket(socket).build());
+            assertCalls(server, client);
+        } finally {
+            client.release();
+            server.release();
+        }
+    }
+
+    @Test
+    void callOverDomainSocket() throws Exception {
+        assumeTrue(Epoll.isAvailable(), "native epoll transport is not available");
+        final Path dir = Files.createTempDirectory("rs-rpc");
+        final String path = dir.resolve("rpc.sock").toString();
+        final Scope server = Rpc.newScope("socketDomainServer", false);
+        final Scope client = Rpc.newScope("socketDomainClient", false);
+        try {
+            server.startServer("socketDomainServer", Config.Server.builder().mode(3).bindAddress(path).build());
+            client.startClient("socketDomainClient", Config.Client.builder().mode(3).host(path).build());
+            assertCalls(server, client);
+        } finally {
+            client.release();
+            server.release();
+            new File(path).delete();
+            Files.deleteIfExists(dir);
+        }
+    }
+}
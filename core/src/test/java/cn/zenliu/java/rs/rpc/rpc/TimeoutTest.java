@@ -0,0 +1,89 @@
+package cn.zenliu.java.rs.rpc.rpc;
+
+import cn.zenliu.java.rs.rpc.api.ClientOptions;
+import cn.zenliu.java.rs.rpc.api.Config;
+import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.core.Rpc;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import reactor.core.Exceptions;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeoutTest {
+    public interface Slow {
+        int sleep(int millis);
+    }
+
+    public static class SlowImpl implements Slow {
+        @Override
+        public int sleep(int millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return millis;
+        }
+    }
+
+    static Scope server;
+    static Scope client;
+
+    @BeforeAll
+    static void start() throws Exception {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = Rpc.newScope("timeoutServer", false);
+        server.startServer("timeoutServer", Config.Server.builder().bindAddress("127.0.0.1").port(port).build());
+        client = Rpc.newScope("timeoutClient", false);
+        client.setTimeout(Duration.ofMillis(300));
+        client.startClient("timeoutClient", Config.Client.builder().host("127.0.0.1").port(port).build());
+        //registered after connected to be pushed at once
+        server.registerService(new SlowImpl(), Slow.class, null);
+        Util.awaitRemote(client, Slow.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        client.release();
+        server.release();
+    }
+
+    static void assertTimeout(Slow slow) {
+        assertEquals(10, slow.sleep(10));
+        final long start = System.nanoTime();
+        final RuntimeException ex = assertThrows(RuntimeException.class, () -> slow.sleep(1500));
+        assertTrue(Exceptions.unwrap(ex) instanceof TimeoutException, ex::toString);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1000));
+    }
+
+    @Test
+    void slowCallFails() {
+        assertTimeout(client.createClientService(Slow.class, null, false));
+    }
+
+    @Test
+    void proxiesAreCachedByOptions() {
+        final Slow scoped = client.createClientService(Slow.class, null, false);
+        final Slow patient = client.createClientService(Slow.class, null, false, ClientOptions.builder().timeout(Duration.ofSeconds(3)).build());
+        assertNotSame(scoped, patient);
+        assertSame(patient, client.createClientService(Slow.class, null, false, ClientOptions.builder().timeout(Duration.ofSeconds(3)).build()));
+        assertSame(scoped, client.createClientService(Slow.class, null, false, ClientOptions.DEFAULT));
+        assertEquals(500, patient.sleep(500));
+        assertTimeout(scoped);
+    }
+
+    @Test
+    void slowLocalCallFails() {
+        assertTimeout(client.createClientService(Slow.class, null, false, ClientOptions.builder().local(true).build()));
+    }
+}
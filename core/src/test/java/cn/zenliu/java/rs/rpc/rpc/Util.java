@@ -10,10 +10,20 @@ import org.slf4j.Logger;
  * @since 2021-01-23
  */
 public interface Util {
+    /**
+     * wait until scope knows a remote serves the service
+     */
+    static void awaitRemote(Scope scope, Class<?> service) throws InterruptedException {
+        final ScopeImpl impl = (ScopeImpl) scope;
+        for (int i = 0; i < 250 && impl.findRemoteService(service.getCanonicalName()) == null; i++) Thread.sleep(20);
+        if (impl.findRemoteService(service.getCanonicalName()) == null)
+            throw new IllegalStateException("no remote serves " + service + " in " + scope.getName());
+    }
+
     static void registerShutdown(Scope service, Logger log) {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             final ScopeImpl scope = (ScopeImpl) service;
-            log.warn("service {} info {} handler {}", service.getName(), scope.getRoutes().get(), scope.getSigns());
+            log.warn("service {} info {} handler {}", service.getName(), scope.getRoutes().get(), scope.getHandlers());
             service.release();
         }));
     }
@@ -1,5 +1,6 @@
 package cn.zenliu.java.rs.rpc.spring;
 
+import cn.zenliu.java.rs.rpc.core.EventLoops;
 import cn.zenliu.java.rs.rpc.core.Remote;
 import cn.zenliu.java.rs.rpc.core.Rpc;
 import cn.zenliu.java.rs.rpc.core.ScopeImpl;
@@ -17,6 +18,7 @@ import reactor.core.Disposable;
 
 import java.lang.annotation.*;
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -98,9 +100,54 @@ public @interface EnableRsRpcMbean {
         @ManagedOperationParameter(name = "name", description = "scope simple name")
         public Map<String, List<Map<String, Object>>> remotes(@NotNull String name) {
             final ScopeImpl bean = getBean(name);
-            return Seq.seq(bean.getRemoteServices())
-                .map(t -> t.map1(i -> bean.getDomains().getValue().get(i)).map2(x -> Seq.seq(x).map(Remote::dumpRemote).toList()))
-                .toMap(Tuple2::v1, Tuple2::v2);
+            final Map<String, List<Map<String, Object>>> result = new HashMap<>();
+            bean.getRemoteServices().forEach((domain, remotes) -> {
+                if (remotes != null) result.put(domain, Seq.of(remotes.remotes()).map(Remote::dumpRemote).toList());
+            });
+            return result;
+        }
+
+        @ManagedOperation(description = "view service execution bulkheads")
+        @ManagedOperationParameter(name = "name", description = "scope simple name")
+        public Map<String, Map<String, Object>> bulkheads(@NotNull String name) {
+            final ScopeImpl bean = getBean(name);
+            final Map<String, Map<String, Object>> result = new HashMap<>();
+            bean.getBulkheads().forEach((k, v) -> result.put(k, v.dump()));
+            return result;
+        }
+
+        @ManagedOperation(description = "view client result caches")
+        @ManagedOperationParameter(name = "name", description = "scope simple name")
+        public Map<String, Map<String, Object>> clientCaches(@NotNull String name) {
+            final ScopeImpl bean = getBean(name);
+            final Map<String, Map<String, Object>> result = new HashMap<>();
+            bean.getClientCaches().forEach((k, v) -> result.put(k, v.dump()));
+            return result;
+        }
+
+        @ManagedOperation(description = "invalidate client result caches")
+        @ManagedOperationParameters({
+            @ManagedOperationParameter(name = "name", description = "scope simple name"),
+            @ManagedOperationParameter(name = "prefix", description = "prefix of method signs, such as 'service.Name#' or 'service.Name#method<'"),
+        })
+        public void invalidateClientCaches(@NotNull String name, @NotNull String prefix) {
+            getBean(name).invalidateClientCaches(prefix);
+        }
+
+        @ManagedOperation(description = "view memoized responses of services")
+        @ManagedOperationParameter(name = "name", description = "scope simple name")
+        public Map<String, Map<String, Object>> memos(@NotNull String name) {
+            final ScopeImpl bean = getBean(name);
+            final Map<String, Map<String, Object>> result = new HashMap<>();
+            bean.getMemos().forEach((k, v) -> result.put(k, v.dump()));
+            return result;
+        }
+
+        @ManagedOperation(description = "view event loops with pending tasks of each loop")
+        public Map<String, Map<String, Object>> loops() {
+            final Map<String, Map<String, Object>> result = new HashMap<>();
+            EventLoops.getLoops().forEach((k, v) -> result.put(k, v.dump()));
+            return result;
         }
 
         @ManagedOperation(description = "view local proxy services")
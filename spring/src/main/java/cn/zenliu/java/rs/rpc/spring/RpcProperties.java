@@ -22,6 +22,10 @@ public class RpcProperties {
      * Server|Client name
      */
     String name = "RSocket";
+    /**
+     * transport mode: 0 TCP, 2 LOCAL (in JVM, named by host), 3 UNIX domain socket (path by host)
+     */
+    int mode = 0;
     /**
      * port of serve or port to connect
      */
@@ -46,4 +50,44 @@ public class RpcProperties {
      * enable trace
      */
     boolean trace = false;
+    /**
+     * flush consolidation of transport, max frames written before a forced flush. null to flush every frame
+     */
+    Integer flushConsolidation;
+    /**
+     * use native transport (epoll) when available, null for default (true)
+     */
+    Boolean preferNative;
+    /**
+     * TCP_NODELAY, null for transport default
+     */
+    Boolean tcpNoDelay;
+    /**
+     * SO_REUSEPORT of server (native only), null for transport default
+     */
+    Boolean reusePort;
+    /**
+     * TCP_QUICKACK (native only), null for transport default
+     */
+    Boolean quickAck;
+    /**
+     * SO_SNDBUF, null for transport default
+     */
+    Integer sendBufferSize;
+    /**
+     * SO_RCVBUF, null for transport default
+     */
+    Integer receiveBufferSize;
+    /**
+     * name of event loops, same name shares loops in the JVM. null to use the global loops of reactor netty
+     */
+    String loopName;
+    /**
+     * IO threads of event loops, null for count of processors (at least 4)
+     */
+    Integer loopWorkers;
+    /**
+     * threads accepting connections of server, null or 0 to accept on the IO threads
+     */
+    Integer loopSelectors;
 }
@@ -2,8 +2,11 @@ package cn.zenliu.java.rs.rpc.spring;
 
 import cn.zenliu.java.rs.rpc.api.Config;
 import cn.zenliu.java.rs.rpc.api.Scope;
+import cn.zenliu.java.rs.rpc.api.ServiceOptions;
 import cn.zenliu.java.rs.rpc.core.Rpc;
 import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.ListableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
@@ -13,7 +16,10 @@ import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.Ordered;
 import org.springframework.core.PriorityOrdered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ClassUtils;
 
+import java.lang.reflect.Method;
 import java.util.function.Supplier;
 
 /**
@@ -63,7 +69,38 @@ public class RpcProxyServiceRegister implements BeanDefinitionRegistryPostProces
 
     public static <T> void registerService(Scope scope, Class<T> service, ListableBeanFactory ctx) {
         log.info("RPC[{}] will register local service {} into rpc", scope.getName(), service);
-        scope.registerService(ctx.getBean(service), service, null);
+        final T bean = ctx.getBean(service);
+        scope.registerService(bean, service, null, executionOptions(service, AopUtils.getTargetClass(bean)));
+    }
+
+    /**
+     * read {@link RsRpcExecution} from service interface and bean class, bean class wins
+     *
+     * @return null if none annotated
+     */
+    static @Nullable ServiceOptions executionOptions(Class<?> service, Class<?> beanClass) {
+        RsRpcExecution annotation = AnnotationUtils.findAnnotation(beanClass, RsRpcExecution.class);
+        if (annotation == null) annotation = AnnotationUtils.findAnnotation(service, RsRpcExecution.class);
+        final ServiceOptions.ServiceOptionsBuilder builder = annotation == null ? ServiceOptions.builder() : toOptions(annotation).toBuilder();
+        boolean found = annotation != null;
+        for (Method method : service.getMethods()) {
+            RsRpcExecution methodAnnotation = null;
+            final Method impl = ClassUtils.getMostSpecificMethod(method, beanClass);
+            if (impl != null) methodAnnotation = AnnotationUtils.findAnnotation(impl, RsRpcExecution.class);
+            if (methodAnnotation == null) methodAnnotation = AnnotationUtils.findAnnotation(method, RsRpcExecution.class);
+            if (methodAnnotation == null) continue;
+            builder.method(method.getName(), toOptions(methodAnnotation));
+            found = true;
+        }
+        return found ? builder.build() : null;
+    }
+
+    static ServiceOptions toOptions(RsRpcExecution annotation) {
+        final ServiceOptions.ServiceOptionsBuilder builder = ServiceOptions.builder()
+            .execution(annotation.value())
+            .queueLimit(annotation.queueLimit());
+        if (annotation.threads() > 0) builder.threads(annotation.threads());
+        return builder.build();
     }
 
     /**
@@ -83,10 +120,23 @@ public class RpcProxyServiceRegister implements BeanDefinitionRegistryPostProces
         }
         scope.setDebug(properties.isDebug());
         scope.setTrace(properties.isTrace());
+        final Config.Socket socket = Config.Socket.builder()
+            .preferNative(properties.getPreferNative())
+            .tcpNoDelay(properties.getTcpNoDelay())
+            .reusePort(properties.getReusePort())
+            .quickAck(properties.getQuickAck())
+            .sendBufferSize(properties.getSendBufferSize())
+            .receiveBufferSize(properties.getReceiveBufferSize())
+            .build();
+        final Config.Loop loop = properties.getLoopName() == null ? null : Config.Loop.builder()
+            .name(properties.getLoopName())
+            .workers(properties.getLoopWorkers())
+            .selectors(properties.getLoopSelectors())
+            .build();
         if (properties.isClient()) {
-            scope.startClient(properties.getName() + "Client", Config.Client.builder().host(properties.getHost()).port(properties.getPort()).build());
+            scope.startClient(properties.getName() + "Client", Config.Client.builder().mode(properties.getMode()).host(properties.getHost()).port(properties.getPort()).flushConsolidation(properties.getFlushConsolidation()).socket(socket).loop(loop).build());
         } else {
-            scope.startServer(properties.getName() + "Server", Config.Server.builder().port(properties.getPort()).build());
+            scope.startServer(properties.getName() + "Server", Config.Server.builder().mode(properties.getMode()).bindAddress(properties.getMode() >= 2 ? properties.getHost() : null).port(properties.getPort()).flushConsolidation(properties.getFlushConsolidation()).socket(socket).loop(loop).build());
         }
         return scope;
     }
@@ -0,0 +1,30 @@
+package cn.zenliu.java.rs.rpc.spring;
+
+import cn.zenliu.java.rs.rpc.api.ServiceOptions;
+
+import java.lang.annotation.*;
+
+/**
+ * execution options of a exposed service, on the service interface or its bean class, or on a method of them.
+ *
+ * @author Zen.Liu
+ * @apiNote
+ * @since 2021-01-29
+ * @see ServiceOptions
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RsRpcExecution {
+    ServiceOptions.Execution value() default ServiceOptions.Execution.EVENT_LOOP;
+
+    /**
+     * threads of dedicated executor, non positive for available processors
+     */
+    int threads() default 0;
+
+    /**
+     * maximum pending calls
+     */
+    int queueLimit() default 1024;
+}